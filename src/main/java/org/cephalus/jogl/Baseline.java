@@ -0,0 +1,18 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Fails the test when its p95 frame time exceeds the one stored in {@code <reference>.baseline} next to the
+ * test class by more than {@code tolerance}. The measured frames of the single run are split into {@code trials}
+ * consecutive slices and the median of their outlier-free p95 is used, which damps a short slow stretch but not
+ * a slowdown of the whole run. Every run writes its own result to
+ * {@code target/recorded-baselines/<class>/<reference>.baseline}, ready to be copied next to the test class.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Baseline {
+    String reference() default "";
+    float tolerance() default 0.2f;
+    int trials() default 5;
+}
@@ -0,0 +1,21 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Counts the GL calls issued by every measured invocation of the test method and fails the test when a frame
+ * exceeds one of the budgets. A negative budget is not checked. The counts are written to
+ * {@code target/gl-calls/<class>.<method>.json}.
+ * <p>
+ * Calls are counted through a reflective {@link CallCounter} proxy, which makes every GL call noticeably more
+ * expensive; do not combine this with timing annotations such as {@link FrameBenchmark}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CallBudget {
+    int draws() default -1;
+    int binds() default -1;
+    int uniforms() default -1;
+    int bufferUploads() default -1;
+    int calls() default -1;
+}
@@ -0,0 +1,207 @@
+package org.cephalus.jogl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLBase;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wraps a {@link GL} in a proxy that counts the calls made between {@link #begin()} and {@link #end()} by
+ * {@link Category}. Unlike {@code TraceGL} it keeps only per-frame totals, and calls made outside a frame are
+ * forwarded without being counted. The {@code getGL*()} casts return the proxy, so code that narrows the GL
+ * stays counted. The {@link GLBase} queries that are not GL calls, such as {@code isGL2()}, {@code getContext()}
+ * or {@code getGLProfile()}, are forwarded without being counted.
+ * <p>
+ * This is a debugging tool, not a low-overhead pipeline: every call through the proxy boxes its arguments and is
+ * dispatched reflectively, so it is only installed while the code under test runs and timings taken with it are
+ * not representative.
+ */
+public class CallCounter implements InvocationHandler {
+
+    public enum Category {
+        DRAWS, BINDS, UNIFORMS, BUFFER_UPLOADS, OTHER
+    }
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final Map<Method, Category> categories = new IdentityHashMap<>();
+
+    private final GL gl;
+    private final GL proxy;
+
+    private boolean counting;
+    private final int[] current = new int[CATEGORIES.length];
+    private final long[] totals = new long[CATEGORIES.length];
+    private final int[] max = new int[CATEGORIES.length];
+    private final int[] maxFrame = new int[CATEGORIES.length];
+    private int maxCalls;
+    private int maxCallsFrame;
+    private int frames;
+
+    public CallCounter(GL gl) {
+        this.gl = gl;
+        this.proxy = (GL) Proxy.newProxyInstance(gl.getClass().getClassLoader(), interfaces(gl.getClass()), this);
+    }
+
+    /**
+     * Returns the counting proxy.
+     */
+    public GL gl() {
+        return proxy;
+    }
+
+    /**
+     * Returns the wrapped GL.
+     */
+    public GL original() {
+        return gl;
+    }
+
+    public void begin() {
+        for(int i = 0; i < current.length; i++)
+            current[i] = 0;
+        counting = true;
+    }
+
+    public void end() {
+        counting = false;
+        frames++;
+        int calls = 0;
+        for(int i = 0; i < current.length; i++) {
+            totals[i] += current[i];
+            calls += current[i];
+            if(current[i] > max[i]) {
+                max[i] = current[i];
+                maxFrame[i] = frames;
+            }
+        }
+        if(calls > maxCalls) {
+            maxCalls = calls;
+            maxCallsFrame = frames;
+        }
+    }
+
+    public int frames() {
+        return frames;
+    }
+
+    /**
+     * Returns the calls of {@code category} in the last frame.
+     */
+    public int calls(Category category) {
+        return current[category.ordinal()];
+    }
+
+    public long total(Category category) {
+        return totals[category.ordinal()];
+    }
+
+    public int max(Category category) {
+        return max[category.ordinal()];
+    }
+
+    /**
+     * Returns the first frame, counting from 1, that reached {@link #max(Category)}.
+     */
+    public int maxFrame(Category category) {
+        return maxFrame[category.ordinal()];
+    }
+
+    public int maxCalls() {
+        return maxCalls;
+    }
+
+    public int maxCallsFrame() {
+        return maxCallsFrame;
+    }
+
+    /**
+     * Formats the per-frame maximum and mean of every category as a JSON object.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"frames\": ").append(frames);
+        long calls = 0;
+        for(Category category : CATEGORIES) {
+            long total = total(category);
+            calls += total;
+            json.append(", \"").append(category.name().toLowerCase(Locale.ROOT)).append("\": ")
+                    .append(statistics(max(category), total));
+        }
+        return json.append(", \"calls\": ").append(statistics(maxCalls, calls)).append('}').toString();
+    }
+
+    private String statistics(int max, long total) {
+        return String.format(Locale.ROOT, "{\"max\": %d, \"mean\": %.3f}", max, frames == 0 ? 0.0 : (double) total / frames);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if(method.getDeclaringClass() == Object.class)
+            return objectMethod(proxy, method, args);
+        if(args == null && method.getName().startsWith("getGL") && method.getReturnType().isInstance(proxy))
+            return proxy;
+        if(counting) {
+            Category category = categories.get(method);
+            if(category == null && !categories.containsKey(method)) {
+                category = counted(method) ? category(method) : null;
+                categories.put(method, category);
+            }
+            if(category != null)
+                current[category.ordinal()]++;
+        }
+        try {
+            return method.invoke(gl, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch(method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "CallCounter[" + gl.getClass().getName() + "]";
+        }
+    }
+
+    static boolean counted(Method method) {
+        return method.getDeclaringClass() != GLBase.class || method.getName().startsWith("gl");
+    }
+
+    static Category category(Method method) {
+        String name = method.getName();
+        if((name.startsWith("glDraw") && !name.startsWith("glDrawBuffer")) || name.startsWith("glMultiDraw")
+                || name.equals("glBegin"))
+            return Category.DRAWS;
+        if(name.startsWith("glBind") || name.equals("glUseProgram"))
+            return Category.BINDS;
+        if(name.startsWith("glUniform") || name.startsWith("glProgramUniform"))
+            return Category.UNIFORMS;
+        if(name.equals("glBufferData") || name.equals("glBufferSubData") || name.equals("glBufferStorage")
+                || name.startsWith("glNamedBuffer") && (name.endsWith("Data") || name.endsWith("Storage")))
+            return Category.BUFFER_UPLOADS;
+        return Category.OTHER;
+    }
+
+    private static Class<?>[] interfaces(Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for(Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for(Class<?> i : c.getInterfaces()) {
+                if(GLBase.class.isAssignableFrom(i))
+                    interfaces.add(i);
+            }
+        }
+        return interfaces.toArray(new Class<?>[0]);
+    }
+}
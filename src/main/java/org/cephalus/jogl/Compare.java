@@ -1,5 +1,8 @@
 package org.cephalus.jogl;
 
+import org.cephalus.jogl.metric.AbsoluteDifference;
+import org.cephalus.jogl.metric.Metric;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
@@ -7,4 +10,18 @@ import java.lang.annotation.RetentionPolicy;
 public @interface Compare {
     String reference() default "";
     float maxDivergence() default 0.01f;
+    boolean parallel() default false;
+    boolean hierarchical() default false;
+    /**
+     * Reduces each frame against its reference on the GPU and only reads back frames that are not clearly within
+     * {@link #maxDivergence()}. Only the default {@link AbsoluteDifference} metric is supported and mismatching
+     * frames are read synchronously, so combining this with another metric or with {@link Readback.Type#PBO}
+     * fails the test.
+     */
+    boolean gpu() default false;
+    int tileSize() default 128;
+    int workers() default 0;
+    int queueSize() default 4;
+    Class<? extends Metric> metric() default AbsoluteDifference.class;
+    int tolerance() default 0;
 }
@@ -0,0 +1,14 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Runs the test methods of a class on up to {@code value} threads at once, each with its own drawable and
+ * animator. When {@code value} is greater than one every test method is rendered {@link Offscreen}, whatever
+ * its {@code Offscreen} or {@link Configuration} say, so no visible windows are opened concurrently.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Concurrency {
+    int value();
+}
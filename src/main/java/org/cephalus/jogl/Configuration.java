@@ -5,6 +5,7 @@ import com.jogamp.opengl.GLProfile;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
+import static org.cephalus.jogl.Readback.Type.SYNC;
 import static org.cephalus.jogl.Swap.Type.AUTO;
 
 @Retention(RetentionPolicy.RUNTIME)
@@ -21,4 +22,14 @@ public @interface Configuration {
     int iterations() default 120;
 
     Swap.Type swap() default AUTO;
+
+    boolean pooled() default false;
+
+    boolean offscreen() default false;
+
+    Readback.Type readback() default SYNC;
+
+    boolean uncapped() default false;
+
+    boolean debug() default false;
 }
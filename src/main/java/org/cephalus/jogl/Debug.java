@@ -0,0 +1,20 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Creates a debug context and listens to its {@code KHR_debug} or {@code ARB_debug_output} messages instead of
+ * calling {@code glGetError}. Errors fail the test with the frame they were raised in; performance warnings of
+ * any severity and other messages above notification severity are written to
+ * {@code target/gl-debug/<class>.<method>.log}.
+ * <p>
+ * By default messages are delivered asynchronously, which keeps the driver's threaded optimizations on but only
+ * lets a message be attributed to the phase or frame the runner was in when it arrived. {@code synchronous}
+ * makes the driver report each message from the call that raised it, at the cost of serializing the driver.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Debug {
+    boolean value() default true;
+    boolean synchronous() default false;
+}
@@ -0,0 +1,16 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Times every measured invocation of the test method, on the CPU and, where {@code GL_TIME_ELAPSED} queries
+ * are available, on the GPU. {@code warmup} frames run first and are not timed. They are still compared, so rendered frame {@code n} is
+ * always checked against reference frame {@code n} and a recording must cover the warmup frames too. The summary
+ * is written to {@code target/frame-timings/<class>.<method>.json}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FrameBenchmark {
+    int warmup() default 10;
+    boolean gpu() default true;
+}
@@ -0,0 +1,105 @@
+package org.cephalus.jogl;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Summary of a series of frame times in nanoseconds. Percentiles use the nearest-rank method.
+ */
+public class FrameStatistics {
+
+    private final long[] sorted;
+    private final double mean;
+
+    public FrameStatistics(long[] samples, int count) {
+        if(count <= 0)
+            throw new IllegalArgumentException("No samples");
+        this.sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        double sum = 0;
+        for(long sample : sorted)
+            sum += sample;
+        this.mean = sum / count;
+    }
+
+    public int count() {
+        return sorted.length;
+    }
+
+    public long min() {
+        return sorted[0];
+    }
+
+    public long max() {
+        return sorted[sorted.length - 1];
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Returns the smallest sample that is greater than or equal to {@code percentile} percent of the samples.
+     */
+    public long percentile(double percentile) {
+        if(percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile out of range: " + percentile);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Returns a copy without the samples above the upper Tukey fence, {@code p75 + 1.5 * (p75 - p25)}.
+     */
+    public FrameStatistics withoutOutliers() {
+        long p25 = percentile(25);
+        long p75 = percentile(75);
+        double fence = p75 + 1.5 * (p75 - p25);
+        int count = 0;
+        while(count < sorted.length && sorted[count] <= fence)
+            count++;
+        return new FrameStatistics(sorted, count);
+    }
+
+    /**
+     * Splits {@code samples} into {@code trials} consecutive slices, drops the outliers of each slice and returns
+     * the median of their {@code percentile}. A short slow stretch then moves at most one of the slices. The
+     * slices come from one warm run, so they are not independent trials: a cause that slows the whole run, such
+     * as a busy machine or a lower clock, moves every slice alike.
+     */
+    public static long trialPercentile(long[] samples, int count, int trials, double percentile) {
+        if(count <= 0)
+            throw new IllegalArgumentException("No samples");
+        trials = Math.max(1, Math.min(trials, count));
+        long[] results = new long[trials];
+        for(int trial = 0; trial < trials; trial++) {
+            int from = (int) ((long) count * trial / trials);
+            int to = (int) ((long) count * (trial + 1) / trials);
+            long[] run = Arrays.copyOfRange(samples, from, to);
+            results[trial] = new FrameStatistics(run, run.length).withoutOutliers().percentile(percentile);
+        }
+        Arrays.sort(results);
+        return trials % 2 == 1 ? results[trials / 2] : (results[trials / 2 - 1] + results[trials / 2]) / 2;
+    }
+
+    /**
+     * Formats the statistics as a JSON object with times in milliseconds.
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"count\": %d, \"min\": %.6f, \"mean\": %.6f, \"p50\": %.6f, \"p95\": %.6f, \"p99\": %.6f, \"max\": %.6f}",
+                count(), millis(min()), mean() / 1e6, millis(percentile(50)), millis(percentile(95)),
+                millis(percentile(99)), millis(max()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n=%d min=%.3fms mean=%.3fms p50=%.3fms p95=%.3fms p99=%.3fms",
+                count(), millis(min()), mean() / 1e6, millis(percentile(50)), millis(percentile(95)),
+                millis(percentile(99)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,285 @@
+package org.cephalus.jogl;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL2GL3;
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.util.glsl.ShaderUtil;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes the divergence of the current frame against a reference without reading the frame back. Each
+ * reference is uploaded once as a texture, a fullscreen pass writes the per-pixel
+ * {@code min(|dr| + |dg| + |db|, 255) / 255} into a power-of-two float target, and {@code glGenerateMipmap}
+ * averages it down to a single texel, which is the only thing read back. Needs an OpenGL 3.0 context.
+ * All GL state touched by {@link #divergence} is restored before it returns.
+ */
+public class GpuComparator {
+
+    /**
+     * Margin below {@code maxDivergence} under which the float reduction is trusted without a CPU check.
+     */
+    public static final float EPSILON = 1e-4f;
+
+    private static final String VERTEX_SHADER = ""
+            + "void main() {\n"
+            + "    vec2 position = vec2((gl_VertexID << 1) & 2, gl_VertexID & 2);\n"
+            + "    gl_Position = vec4(position * 2.0 - 1.0, 0.0, 1.0);\n"
+            + "}\n";
+
+    private static final String FRAGMENT_SHADER = ""
+            + "uniform sampler2D actual;\n"
+            + "uniform sampler2D expected;\n"
+            + "out vec4 color;\n"
+            + "void main() {\n"
+            + "    ivec2 p = ivec2(gl_FragCoord.xy);\n"
+            + "    ivec2 size = textureSize(expected, 0);\n"
+            + "    if(p.x >= size.x || p.y >= size.y) {\n"
+            + "        color = vec4(0.0);\n"
+            + "        return;\n"
+            + "    }\n"
+            + "    vec3 a = floor(texelFetch(actual, p, 0).rgb * 255.0 + 0.5);\n"
+            + "    vec3 e = floor(texelFetch(expected, ivec2(p.x, size.y - 1 - p.y), 0).rgb * 255.0 + 0.5);\n"
+            + "    vec3 d = abs(a - e);\n"
+            + "    color = vec4(min(d.r + d.g + d.b, 255.0) / 255.0, 0.0, 0.0, 1.0);\n"
+            + "}\n";
+
+    private final Map<String, Integer> references = new HashMap<>();
+    private final int[] ints = new int[1];
+    private final FloatBuffer result = Buffers.newDirectFloatBuffer(1);
+
+    private int program;
+    private int vao;
+    private int fbo;
+    private int actual;
+    private int diff;
+    private int width;
+    private int height;
+    private int targetWidth;
+    private int targetHeight;
+
+    /**
+     * Returns the divergence of the frame in the default read buffer from {@code reference}, loading the
+     * reference only the first time {@code name} is seen. Returns {@code NaN} when the sizes differ.
+     */
+    public float divergence(GLAutoDrawable drawable, String name, ReferenceCache.Loader reference) throws IOException {
+        GL2GL3 gl = drawable.getGL().getGL2GL3();
+        if(gl.getContext().getGLVersionNumber().compareTo(GLContext.Version3_0) < 0)
+            throw new IllegalStateException("GPU compare requires an OpenGL 3.0 context");
+        int width = drawable.getSurfaceWidth();
+        int height = drawable.getSurfaceHeight();
+
+        State state = new State(gl);
+        try {
+            allocate(gl, width, height);
+            Integer texture = references.get(name);
+            if(texture == null) {
+                BufferedImage image = reference.load();
+                texture = image.getWidth() == width && image.getHeight() == height ? upload(gl, image) : 0;
+                references.put(name, texture);
+            }
+            if(texture == 0)
+                return Float.NaN;
+
+            gl.glBindFramebuffer(GL2ES3.GL_READ_FRAMEBUFFER, gl.getDefaultReadFramebuffer());
+            gl.glReadBuffer(gl.getDefaultReadBuffer());
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, actual);
+            gl.glCopyTexSubImage2D(GL.GL_TEXTURE_2D, 0, 0, 0, 0, 0, width, height);
+            gl.glActiveTexture(GL.GL_TEXTURE1);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, texture);
+
+            gl.glBindFramebuffer(GL.GL_DRAW_FRAMEBUFFER, fbo);
+            gl.glViewport(0, 0, targetWidth, targetHeight);
+            gl.glDisable(GL.GL_BLEND);
+            gl.glDisable(GL.GL_DEPTH_TEST);
+            gl.glDisable(GL.GL_SCISSOR_TEST);
+            gl.glDisable(GL.GL_STENCIL_TEST);
+            gl.glDisable(GL.GL_CULL_FACE);
+            gl.glColorMask(true, true, true, true);
+            gl.glUseProgram(program);
+            gl.glBindVertexArray(vao);
+            gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, diff);
+            gl.glGenerateMipmap(GL.GL_TEXTURE_2D);
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+            gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+            result.clear();
+            gl.glGetTexImage(GL.GL_TEXTURE_2D, levels(targetWidth, targetHeight), GL2ES2.GL_RED, GL.GL_FLOAT, result);
+            return result.get(0) * ((float) targetWidth * targetHeight / ((float) width * height));
+        } finally {
+            state.restore(gl);
+        }
+    }
+
+    public void dispose(GL gl) {
+        GL2GL3 gl3 = gl.getGL2GL3();
+        for(int texture : references.values())
+            if(texture != 0)
+                delete(gl3, texture);
+        references.clear();
+        if(program == 0)
+            return;
+        delete(gl3, actual);
+        delete(gl3, diff);
+        ints[0] = fbo;
+        gl3.glDeleteFramebuffers(1, ints, 0);
+        ints[0] = vao;
+        gl3.glDeleteVertexArrays(1, ints, 0);
+        gl3.glDeleteProgram(program);
+        program = 0;
+        width = 0;
+        height = 0;
+    }
+
+    private void allocate(GL2GL3 gl, int width, int height) {
+        if(program == 0) {
+            String version = gl.getContext().isGLCoreProfile() ? "#version 150\n" : "#version 130\n";
+            int vs = compile(gl, GL2ES2.GL_VERTEX_SHADER, version + VERTEX_SHADER);
+            int fs = compile(gl, GL2ES2.GL_FRAGMENT_SHADER, version + FRAGMENT_SHADER);
+            program = gl.glCreateProgram();
+            gl.glAttachShader(program, vs);
+            gl.glAttachShader(program, fs);
+            gl.glBindFragDataLocation(program, 0, "color");
+            gl.glLinkProgram(program);
+            gl.glDeleteShader(vs);
+            gl.glDeleteShader(fs);
+            gl.glGetProgramiv(program, GL2ES2.GL_LINK_STATUS, ints, 0);
+            if(ints[0] == GL.GL_FALSE)
+                throw new IllegalStateException(ShaderUtil.getProgramInfoLog(gl, program));
+            gl.glUseProgram(program);
+            gl.glUniform1i(gl.glGetUniformLocation(program, "actual"), 0);
+            gl.glUniform1i(gl.glGetUniformLocation(program, "expected"), 1);
+
+            gl.glGenVertexArrays(1, ints, 0);
+            vao = ints[0];
+            gl.glGenFramebuffers(1, ints, 0);
+            fbo = ints[0];
+            actual = texture(gl);
+            diff = texture(gl);
+        }
+        if(this.width == width && this.height == height)
+            return;
+
+        this.width = width;
+        this.height = height;
+        targetWidth = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        targetHeight = Integer.highestOneBit(Math.max(height - 1, 1)) << 1;
+        gl.glBindTexture(GL.GL_TEXTURE_2D, actual);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA8, width, height, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, null);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, diff);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_R32F, targetWidth, targetHeight, 0, GL2ES2.GL_RED, GL.GL_FLOAT, null);
+        gl.glBindFramebuffer(GL.GL_DRAW_FRAMEBUFFER, fbo);
+        gl.glFramebufferTexture2D(GL.GL_DRAW_FRAMEBUFFER, GL.GL_COLOR_ATTACHMENT0, GL.GL_TEXTURE_2D, diff, 0);
+        int status = gl.glCheckFramebufferStatus(GL.GL_DRAW_FRAMEBUFFER);
+        if(status != GL.GL_FRAMEBUFFER_COMPLETE)
+            throw new IllegalStateException("Incomplete difference framebuffer: 0x" + Integer.toHexString(status));
+    }
+
+    private int upload(GL2GL3 gl, BufferedImage image) {
+        int texture = texture(gl);
+        IntBuffer pixels = Buffers.newDirectIntBuffer(ImageComparator.pixels(image));
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_UNPACK_BUFFER, 0);
+        gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 4);
+        gl.glPixelStorei(GL2ES2.GL_UNPACK_ROW_LENGTH, 0);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA8, image.getWidth(), image.getHeight(), 0,
+                GL.GL_BGRA, GL2GL3.GL_UNSIGNED_INT_8_8_8_8_REV, pixels);
+        return texture;
+    }
+
+    private int texture(GL2GL3 gl) {
+        gl.glGenTextures(1, ints, 0);
+        gl.glBindTexture(GL.GL_TEXTURE_2D, ints[0]);
+        gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_NEAREST);
+        gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_NEAREST);
+        return ints[0];
+    }
+
+    private void delete(GL2GL3 gl, int texture) {
+        ints[0] = texture;
+        gl.glDeleteTextures(1, ints, 0);
+    }
+
+    private int compile(GL2GL3 gl, int type, String source) {
+        int shader = gl.glCreateShader(type);
+        gl.glShaderSource(shader, 1, new String[] {source}, new int[] {source.length()}, 0);
+        gl.glCompileShader(shader);
+        gl.glGetShaderiv(shader, GL2ES2.GL_COMPILE_STATUS, ints, 0);
+        if(ints[0] == GL.GL_FALSE)
+            throw new IllegalStateException(ShaderUtil.getShaderInfoLog(gl, shader));
+        return shader;
+    }
+
+    private static int levels(int width, int height) {
+        return 31 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    private static class State {
+        private static final int[] CAPABILITIES = {
+                GL.GL_BLEND, GL.GL_DEPTH_TEST, GL.GL_SCISSOR_TEST, GL.GL_STENCIL_TEST, GL.GL_CULL_FACE
+        };
+
+        private final int[] values = new int[20];
+        private final byte[] colorMask = new byte[4];
+        private final boolean[] enabled = new boolean[CAPABILITIES.length];
+
+        public State(GL2GL3 gl) {
+            gl.glGetIntegerv(GL2ES2.GL_CURRENT_PROGRAM, values, 0);
+            gl.glGetIntegerv(GL.GL_DRAW_FRAMEBUFFER_BINDING, values, 1);
+            gl.glGetIntegerv(GL.GL_READ_FRAMEBUFFER_BINDING, values, 2);
+            gl.glGetIntegerv(GL2ES3.GL_READ_BUFFER, values, 3);
+            gl.glGetIntegerv(GL.GL_VIEWPORT, values, 4);
+            gl.glGetIntegerv(GL.GL_ACTIVE_TEXTURE, values, 8);
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glGetIntegerv(GL.GL_TEXTURE_BINDING_2D, values, 9);
+            gl.glActiveTexture(GL.GL_TEXTURE1);
+            gl.glGetIntegerv(GL.GL_TEXTURE_BINDING_2D, values, 10);
+            gl.glGetIntegerv(GL2ES3.GL_VERTEX_ARRAY_BINDING, values, 11);
+            gl.glGetIntegerv(GL2ES3.GL_PIXEL_PACK_BUFFER_BINDING, values, 12);
+            gl.glGetIntegerv(GL2ES3.GL_PIXEL_UNPACK_BUFFER_BINDING, values, 13);
+            gl.glGetIntegerv(GL.GL_PACK_ALIGNMENT, values, 14);
+            gl.glGetIntegerv(GL.GL_UNPACK_ALIGNMENT, values, 15);
+            gl.glGetIntegerv(GL2ES2.GL_UNPACK_ROW_LENGTH, values, 16);
+            gl.glGetBooleanv(GL.GL_COLOR_WRITEMASK, colorMask, 0);
+            for(int i = 0; i < CAPABILITIES.length; i++)
+                enabled[i] = gl.glIsEnabled(CAPABILITIES[i]);
+        }
+
+        public void restore(GL2GL3 gl) {
+            gl.glUseProgram(values[0]);
+            gl.glBindFramebuffer(GL.GL_DRAW_FRAMEBUFFER, values[1]);
+            gl.glBindFramebuffer(GL2ES3.GL_READ_FRAMEBUFFER, values[2]);
+            gl.glReadBuffer(values[3]);
+            gl.glViewport(values[4], values[5], values[6], values[7]);
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, values[9]);
+            gl.glActiveTexture(GL.GL_TEXTURE1);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, values[10]);
+            gl.glActiveTexture(values[8]);
+            gl.glBindVertexArray(values[11]);
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, values[12]);
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_UNPACK_BUFFER, values[13]);
+            gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, values[14]);
+            gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, values[15]);
+            gl.glPixelStorei(GL2ES2.GL_UNPACK_ROW_LENGTH, values[16]);
+            gl.glColorMask(colorMask[0] != 0, colorMask[1] != 0, colorMask[2] != 0, colorMask[3] != 0);
+            for(int i = 0; i < CAPABILITIES.length; i++) {
+                if(enabled[i])
+                    gl.glEnable(CAPABILITIES[i]);
+                else
+                    gl.glDisable(CAPABILITIES[i]);
+            }
+        }
+    }
+}
@@ -2,12 +2,21 @@ package org.cephalus.jogl;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.stream.IntStream;
 
 import static java.lang.Math.min;
 import static org.junit.Assert.assertEquals;
 
 public class ImageComparator {
 
+
     public static BufferedImage getDifferenceImage(BufferedImage img1, BufferedImage img2) {
         int width1 = img1.getWidth(); // Change - getWidth() and getHeight() for BufferedImage
         int width2 = img2.getWidth(); // take no arguments
@@ -18,24 +27,12 @@ public class ImageComparator {
 
         BufferedImage outImg = new BufferedImage(width1, height1, BufferedImage.TYPE_INT_RGB);
 
-        for (int i = 0; i < height1; i++) {
-            for (int j = 0; j < width1; j++) {
-                int rgb1 = img1.getRGB(j, i);
-                int rgb2 = img2.getRGB(j, i);
-                int r1 = (rgb1 >> 16) & 0xff;
-                int g1 = (rgb1 >> 8) & 0xff;
-                int b1 = (rgb1) & 0xff;
-                int r2 = (rgb2 >> 16) & 0xff;
-                int g2 = (rgb2 >> 8) & 0xff;
-                int b2 = (rgb2) & 0xff;
-
-                int r = Math.abs(r1 - r2);
-                int g = Math.abs(g1 - g2);
-                int b = Math.abs(b1 - b2);
-
-                int result = (r << 16) | (g << 8) | b;
-                outImg.setRGB(j, i, result);
-            }
+        int[] pixels1 = pixels(img1);
+        int[] pixels2 = pixels(img2);
+        int[] out = ((DataBufferInt) outImg.getRaster().getDataBuffer()).getData();
+
+        for (int i = 0, length = width1 * height1; i < length; i++) {
+            out[i] = difference(pixels1[i], pixels2[i]);
         }
 
         return outImg;
@@ -45,19 +42,308 @@ public class ImageComparator {
         int width = diff.getWidth();
         int height = diff.getHeight();
 
-        long all = 0xFF * width * height;
+        long all = 0xFFL * width * height;
         long sum = 0;
 
-        for(int y = 0; y < height; ++y) {
-            for(int x = 0; x < width; ++x) {
-                int rgb = diff.getRGB(x, y);
-                int r = (rgb >> 16) & 0xff;
-                int g = (rgb >> 8) & 0xff;
-                int b = (rgb) & 0xff;
-                sum += min(r + g + b, 0xFF);
+        int[] pixels = pixels(diff);
+        for(int i = 0, length = width * height; i < length; i++) {
+            sum += divergence(pixels[i], 0);
+        }
+
+        return sum / (float) all;
+    }
+
+    /**
+     * Computes the same value as {@code calculateDivergence(getDifferenceImage(expected, actual))} in a single
+     * pass without building the difference image. Stops as soon as the accumulated divergence exceeds
+     * {@code maxDivergence}, in which case the returned value is a lower bound that is already above it.
+     */
+    public static float calculateDivergence(BufferedImage expected, BufferedImage actual, float maxDivergence) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        assertEquals("Different dimensions", new Dimension(width, height), new Dimension(actual.getWidth(), actual.getHeight()));
+
+        long all = 0xFFL * width * height;
+        long sum = 0;
+
+        int[] pixels1 = intData(expected);
+        int[] pixels2 = intData(actual);
+        int[] row1 = pixels1 == null ? new int[width] : null;
+        int[] row2 = pixels2 == null ? new int[width] : null;
+
+        for(int y = 0; y < height; y++) {
+            int offset1 = 0;
+            int offset2 = 0;
+            if(pixels1 == null)
+                row(expected, y, row1, 0);
+            else
+                offset1 = y * width;
+            if(pixels2 == null)
+                row(actual, y, row2, 0);
+            else
+                offset2 = y * width;
+            int[] data1 = pixels1 == null ? row1 : pixels1;
+            int[] data2 = pixels2 == null ? row2 : pixels2;
+
+            for(int x = 0; x < width; x++)
+                sum += divergence(data1[offset1 + x], data2[offset2 + x]);
+
+            if(sum / (float) all > maxDivergence)
+                break;
+        }
+
+        return sum / (float) all;
+    }
+
+    /**
+     * Splits the frames into {@code tileSize} square tiles and computes the divergence of each one. Rows of
+     * tiles are processed as independent tasks on the common fork-join pool when {@code parallel} is set;
+     * per-tile sums are exact integers, so the result does not depend on scheduling.
+     */
+    public static TileDivergence[] calculateTileDivergence(BufferedImage expected, BufferedImage actual, int tileSize, boolean parallel) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        assertEquals("Different dimensions", new Dimension(width, height), new Dimension(actual.getWidth(), actual.getHeight()));
+        if(tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        TileDivergence[] tiles = new TileDivergence[columns * rows];
+
+        IntStream bands = IntStream.range(0, rows);
+        if(parallel)
+            bands = bands.parallel();
+        bands.forEach(band -> {
+            int top = band * tileSize;
+            int bottom = min(top + tileSize, height);
+            long[] sums = new long[columns];
+            int[] row1 = new int[width];
+            int[] row2 = new int[width];
+            for(int y = top; y < bottom; y++) {
+                row(expected, y, row1, 0);
+                row(actual, y, row2, 0);
+                for(int x = 0; x < width; x++)
+                    sums[x / tileSize] += divergence(row1[x], row2[x]);
             }
+            for(int column = 0; column < columns; column++) {
+                int left = column * tileSize;
+                tiles[band * columns + column] = new TileDivergence(left, top, min(tileSize, width - left), bottom - top, sums[column]);
+            }
+        });
+
+        return tiles;
+    }
+
+    /**
+     * Computes the same divergence as {@link #calculateDivergence(BufferedImage, BufferedImage, float)} by first
+     * comparing 64-bit signatures of every {@code tileSize} square tile and only diffing the tiles whose
+     * signatures differ. A signature collision would make a differing tile count as identical; with 64-bit hashes
+     * this is not a practical concern.
+     */
+    public static float calculateHierarchicalDivergence(BufferedImage expected, BufferedImage actual, int tileSize) {
+        if(tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        return calculateHierarchicalDivergence(expected, signatures(expected, tileSize), actual, tileSize);
+    }
+
+    /**
+     * Like {@link #calculateHierarchicalDivergence(BufferedImage, BufferedImage, int)}, with the
+     * {@link #signatures} of {@code expected} computed beforehand, for example by {@link ReferenceCache}.
+     */
+    public static float calculateHierarchicalDivergence(BufferedImage expected, long[] expectedSignatures,
+                                                        BufferedImage actual, int tileSize) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        assertEquals("Different dimensions", new Dimension(width, height), new Dimension(actual.getWidth(), actual.getHeight()));
+        if(tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        if(expectedSignatures.length != columns * rows)
+            throw new IllegalArgumentException("Expected " + columns * rows + " signatures, got " + expectedSignatures.length);
+        long[] actualSignatures = signatures(actual, tileSize);
+
+        boolean[] suspect = new boolean[columns];
+        int[] row1 = new int[width];
+        int[] row2 = new int[width];
+        long sum = 0;
+        for(int band = 0; band < rows; band++) {
+            boolean any = false;
+            for(int column = 0; column < columns; column++) {
+                int tile = band * columns + column;
+                suspect[column] = expectedSignatures[tile] != actualSignatures[tile];
+                any |= suspect[column];
+            }
+            if(!any)
+                continue;
+            for(int y = band * tileSize, bottom = min(y + tileSize, height); y < bottom; y++) {
+                row(expected, y, row1, 0);
+                row(actual, y, row2, 0);
+                for(int column = 0; column < columns; column++) {
+                    if(!suspect[column])
+                        continue;
+                    for(int x = column * tileSize, right = min(x + tileSize, width); x < right; x++)
+                        sum += divergence(row1[x], row2[x]);
+                }
+            }
+        }
+        return sum / (float) (0xFFL * width * height);
+    }
+
+    /**
+     * Returns one 64-bit signature per {@code tileSize} square tile, in row-major tile order.
+     */
+    public static long[] signatures(BufferedImage image, int tileSize) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        long[] signatures = new long[columns * rows];
+        int[] row = new int[width];
+        for(int band = 0; band < rows; band++) {
+            int offset = band * columns;
+            for(int column = 0; column < columns; column++)
+                signatures[offset + column] = 0xCBF29CE484222325L;
+            for(int y = band * tileSize, bottom = min(y + tileSize, height); y < bottom; y++) {
+                row(image, y, row, 0);
+                for(int x = 0; x < width; x++) {
+                    int tile = offset + x / tileSize;
+                    signatures[tile] = (signatures[tile] ^ (row[x] & 0xFFFFFF)) * 0x100000001B3L;
+                }
+            }
+            for(int column = 0; column < columns; column++)
+                signatures[offset + column] = mix(signatures[offset + column]);
         }
+        return signatures;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
 
+    public static float calculateDivergence(TileDivergence[] tiles) {
+        long all = 0;
+        long sum = 0;
+        for(TileDivergence tile : tiles) {
+            all += 0xFFL * tile.width() * tile.height();
+            sum += tile.sum();
+        }
         return sum / (float) all;
     }
+
+    static int difference(int rgb1, int rgb2) {
+        int r = Math.abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+        int g = Math.abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+        int b = Math.abs((rgb1 & 0xff) - (rgb2 & 0xff));
+        return (r << 16) | (g << 8) | b;
+    }
+
+    static int divergence(int rgb1, int rgb2) {
+        int r = Math.abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+        int g = Math.abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+        int b = Math.abs((rgb1 & 0xff) - (rgb2 & 0xff));
+        return min(r + g + b, 0xFF);
+    }
+
+    /**
+     * Returns the image as row-major packed RGB ints, one per pixel. Only the low 24 bits are meaningful.
+     * Compact {@code TYPE_INT_RGB}/{@code TYPE_INT_ARGB} images return their backing array, which must not be
+     * modified; byte interleaved images are converted straight from their data buffer and anything else falls
+     * back to {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+     */
+    public static int[] pixels(BufferedImage image) {
+        int[] data = intData(image);
+        if(data != null)
+            return data;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = new int[width * height];
+        for(int y = 0; y < height; y++)
+            row(image, y, pixels, y * width);
+        return pixels;
+    }
+
+    /**
+     * Copies row {@code y} of the image into {@code pixels} as packed RGB ints.
+     */
+    public static void row(BufferedImage image, int y, int[] pixels, int offset) {
+        int width = image.getWidth();
+        if(isCompact(image)) {
+            switch (image.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    int[] data = intData(image);
+                    if(data != null) {
+                        System.arraycopy(data, y * width, pixels, offset, width);
+                        return;
+                    }
+                    break;
+                case BufferedImage.TYPE_3BYTE_BGR:
+                    if(isInterleaved(image, 3)) {
+                        fromBgr(byteData(image), y * width * 3, 3, pixels, offset, width);
+                        return;
+                    }
+                    break;
+                case BufferedImage.TYPE_4BYTE_ABGR:
+                    if(isInterleaved(image, 4)) {
+                        fromBgr(byteData(image), y * width * 4 + 1, 4, pixels, offset, width);
+                        return;
+                    }
+                    break;
+            }
+        }
+        image.getRGB(0, y, width, 1, pixels, offset, width);
+    }
+
+    private static int[] intData(BufferedImage image) {
+        int type = image.getType();
+        if(type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB)
+            return null;
+        if(!isCompact(image))
+            return null;
+        WritableRaster raster = image.getRaster();
+        if(((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride() != image.getWidth())
+            return null;
+        return ((DataBufferInt) raster.getDataBuffer()).getData();
+    }
+
+    private static byte[] byteData(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    private static boolean isCompact(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        SampleModel model = raster.getSampleModel();
+        return raster.getSampleModelTranslateX() == 0
+                && raster.getSampleModelTranslateY() == 0
+                && model.getWidth() == image.getWidth()
+                && model.getHeight() == image.getHeight()
+                && buffer.getNumBanks() == 1
+                && buffer.getOffset() == 0;
+    }
+
+    private static boolean isInterleaved(BufferedImage image, int pixelStride) {
+        ComponentSampleModel model = (ComponentSampleModel) image.getRaster().getSampleModel();
+        return model.getPixelStride() == pixelStride && model.getScanlineStride() == image.getWidth() * pixelStride;
+    }
+
+    private static void fromBgr(byte[] data, int start, int pixelStride, int[] pixels, int offset, int length) {
+        for(int i = offset, end = offset + length, j = start; i < end; i++, j += pixelStride) {
+            int b = data[j] & 0xff;
+            int g = data[j + 1] & 0xff;
+            int r = data[j + 2] & 0xff;
+            pixels[i] = (r << 16) | (g << 8) | b;
+        }
+    }
 }
@@ -0,0 +1,14 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Renders into an FBO-backed offscreen drawable instead of a visible window. The drawable is created on the
+ * platform's default device, so no window is shown but a display connection is still required: on Linux that
+ * is GLX on an X server, for example Xvfb on a build agent. EGL, surfaceless and OSMesa devices are not used.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Offscreen {
+    boolean value() default true;
+}
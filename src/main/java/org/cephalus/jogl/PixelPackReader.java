@@ -0,0 +1,101 @@
+package org.cephalus.jogl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL2GL3;
+import com.jogamp.opengl.GLAutoDrawable;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads frames back through a ring of pixel buffer objects. Each {@link #read} queues the current frame and,
+ * once the ring is full, maps the oldest queued frame, so results arrive {@code buffers - 1} frames late.
+ */
+public class PixelPackReader {
+
+    private final int[] pbos;
+    private int width;
+    private int height;
+    private boolean rgba;
+    private long queued;
+    private long mapped;
+
+    public PixelPackReader(int buffers) {
+        if(buffers < 2)
+            throw new IllegalArgumentException("At least two buffers are required");
+        this.pbos = new int[buffers];
+    }
+
+    public boolean read(GLAutoDrawable drawable, BufferedImage target) {
+        GL2ES3 gl = drawable.getGL().getGL2ES3();
+        allocate(gl, drawable.getSurfaceWidth(), drawable.getSurfaceHeight());
+
+        gl.glBindFramebuffer(GL2ES3.GL_READ_FRAMEBUFFER, gl.getDefaultReadFramebuffer());
+        gl.glReadBuffer(gl.getDefaultReadBuffer());
+        gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, pbos[(int) (queued % pbos.length)]);
+        if(rgba)
+            gl.glReadPixels(0, 0, width, height, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, 0L);
+        else
+            gl.glReadPixels(0, 0, width, height, GL.GL_BGRA, GL2GL3.GL_UNSIGNED_INT_8_8_8_8_REV, 0L);
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+        queued++;
+
+        if(queued - mapped < pbos.length)
+            return false;
+        map(gl, target);
+        return true;
+    }
+
+    public boolean flush(GLAutoDrawable drawable, BufferedImage target) {
+        if(mapped == queued)
+            return false;
+        map(drawable.getGL().getGL2ES3(), target);
+        return true;
+    }
+
+    public int pending() {
+        return (int) (queued - mapped);
+    }
+
+    public void dispose(GL gl) {
+        if(width > 0)
+            gl.glDeleteBuffers(pbos.length, pbos, 0);
+        width = 0;
+        height = 0;
+        queued = 0;
+        mapped = 0;
+    }
+
+    private void allocate(GL2ES3 gl, int width, int height) {
+        if(this.width == width && this.height == height)
+            return;
+        if(queued != mapped)
+            throw new IllegalStateException("Surface resized with " + pending() + " frames pending");
+        dispose(gl);
+        this.width = width;
+        this.height = height;
+        this.rgba = Recorder.readsRgba(gl);
+        gl.glGenBuffers(pbos.length, pbos, 0);
+        for(int pbo : pbos) {
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, pbo);
+            gl.glBufferData(GL2ES3.GL_PIXEL_PACK_BUFFER, (long) width * height * 4, null, GL2ES3.GL_STREAM_READ);
+        }
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+    }
+
+    private void map(GL2ES3 gl, BufferedImage target) {
+        gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, pbos[(int) (mapped % pbos.length)]);
+        try {
+            long size = (long) width * height * 4;
+            ByteBuffer pixels = gl.glMapBufferRange(GL2ES3.GL_PIXEL_PACK_BUFFER, 0, size, GL.GL_MAP_READ_BIT);
+            Recorder.toImage(pixels.order(ByteOrder.nativeOrder()).asIntBuffer(), width, height, target, rgba);
+            gl.glUnmapBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER);
+        } finally {
+            gl.glBindBuffer(GL2ES3.GL_PIXEL_PACK_BUFFER, 0);
+            mapped++;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.cephalus.jogl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the pre-decoded {@code .frames} container written by {@link RawFrameWriter}: a 20 byte header
+ * ({@code magic, version, width, height, flags}), one packed-RGB payload per frame, and a trailing index of
+ * {@code (offset, length, keyframe, hash)} entries followed by the index offset. With {@link #DELTA} every frame
+ * that is not a keyframe is XORed against its predecessor; with {@link #DEFLATE} payloads are deflated.
+ */
+public class RawFrameReader implements ReferenceFrames {
+
+    static final int MAGIC = 0x4A474C46;
+    static final int VERSION = 2;
+    static final int DELTA = 1;
+    static final int DEFLATE = 2;
+    static final int HEADER_SIZE = 20;
+    static final int INDEX_ENTRY_SIZE = 21;
+
+    private final String prefix;
+    private final ByteBuffer data;
+    private final int width;
+    private final int height;
+    private final int flags;
+    private final int count;
+    private final int indexOffset;
+
+    private int lastIndex;
+    private int[] last;
+    private int[] scratch;
+    private byte[] compressed;
+    private byte[] raw;
+
+    public RawFrameReader(String prefix, ByteBuffer data) throws IOException {
+        this.prefix = prefix;
+        this.data = data.duplicate();
+        int limit = this.data.limit();
+        if(limit < HEADER_SIZE + 12 || this.data.getInt(0) != MAGIC)
+            throw new IOException("Not a raw frame container");
+        int version = this.data.getInt(4);
+        if(version != VERSION)
+            throw new IOException("Unsupported raw frame container version " + version);
+        this.width = this.data.getInt(8);
+        this.height = this.data.getInt(12);
+        this.flags = this.data.getInt(16);
+        if(width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE / 4)
+            throw new IOException("Invalid frame size " + width + "x" + height);
+        long index = this.data.getLong(limit - 8);
+        if(index < HEADER_SIZE || index > limit - 12)
+            throw new IOException("Index offset " + index + " out of bounds");
+        this.indexOffset = (int) index;
+        this.count = this.data.getInt(indexOffset);
+        if(count < 0 || count > (limit - 12 - indexOffset) / INDEX_ENTRY_SIZE)
+            throw new IOException("Index of " + count + " frames does not fit the container");
+        for(int frame = 1; frame <= count; frame++) {
+            long offset = this.data.getLong(entry(frame));
+            int length = this.data.getInt(entry(frame) + 8);
+            if(offset < HEADER_SIZE || length < 0 || offset + length > indexOffset)
+                throw new IOException("Frame " + frame + " out of bounds");
+            if((flags & DEFLATE) == 0 && length != width * height * 4)
+                throw new IOException("Frame " + frame + " has " + length + " bytes, expected " + width * height * 4);
+        }
+    }
+
+    public static RawFrameReader open(Class<?> javaClass, String reference) throws IOException {
+        URL resource = javaClass.getResource(reference + ".frames");
+        if(resource == null)
+            return null;
+        return new RawFrameReader(reference.substring(reference.lastIndexOf('/') + 1), ReferenceStore.load(resource));
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String name(int index) {
+        if(index < 1 || index > count)
+            return null;
+        return ReferenceFrames.frameName(prefix, index);
+    }
+
+    @Override
+    public BufferedImage frame(String name) throws IOException {
+        int index = index(name);
+        return index < 0 ? null : frame(index);
+    }
+
+    @Override
+    public Long hash(String name) {
+        int index = index(name);
+        if(index < 0)
+            return null;
+        return data.getLong(entry(index) + 13);
+    }
+
+    private int index(String name) {
+        int separator = name.lastIndexOf('_');
+        int dot = name.lastIndexOf('.');
+        if(separator < 0 || dot < separator)
+            return -1;
+        int index;
+        try {
+            index = Integer.parseInt(name.substring(separator + 1, dot));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+        return name.equals(name(index)) ? index : -1;
+    }
+
+    public BufferedImage frame(int index) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] target = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        synchronized (this) {
+            int[] pixels = decode(index);
+            System.arraycopy(pixels, 0, target, 0, pixels.length);
+        }
+        return image;
+    }
+
+    private int[] decode(int index) throws IOException {
+        if(index < 1 || index > count)
+            throw new IOException("Frame " + index + " out of range 1.." + count);
+        if(lastIndex == index)
+            return last;
+        if(last == null) {
+            last = new int[width * height];
+            scratch = new int[width * height];
+        }
+
+        int start = index;
+        if((flags & DELTA) != 0) {
+            boolean sequential = lastIndex > 0 && lastIndex < index;
+            while(!isKeyframe(start) && !(sequential && start == lastIndex + 1))
+                start--;
+        }
+
+        for(int frame = start; frame <= index; frame++) {
+            payload(frame, scratch);
+            if(!isKeyframe(frame))
+                for(int i = 0; i < scratch.length; i++)
+                    scratch[i] ^= last[i];
+            int[] swap = last;
+            last = scratch;
+            scratch = swap;
+            lastIndex = frame;
+        }
+        return last;
+    }
+
+    private boolean isKeyframe(int index) {
+        return (flags & DELTA) == 0 || data.get(entry(index) + 12) != 0;
+    }
+
+    private int entry(int index) {
+        return indexOffset + 4 + (index - 1) * INDEX_ENTRY_SIZE;
+    }
+
+    private void payload(int index, int[] pixels) throws IOException {
+        int entry = entry(index);
+        int offset = (int) data.getLong(entry);
+        int length = data.getInt(entry + 8);
+        ByteBuffer payload = data.duplicate();
+        payload.position(offset);
+        payload.limit(offset + length);
+        payload = payload.slice();
+
+        if((flags & DEFLATE) == 0) {
+            payload.asIntBuffer().get(pixels);
+            return;
+        }
+        if(compressed == null || compressed.length < length)
+            compressed = new byte[length];
+        payload.get(compressed, 0, length);
+        if(raw == null)
+            raw = new byte[pixels.length * 4];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, 0, length);
+            int inflated = 0;
+            while(inflated < raw.length && !inflater.finished()) {
+                int bytes = inflater.inflate(raw, inflated, raw.length - inflated);
+                if(bytes == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("Corrupt frame " + index);
+                inflated += bytes;
+            }
+            if(inflated != raw.length)
+                throw new IOException("Truncated frame " + index);
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt frame " + index, ex);
+        } finally {
+            inflater.end();
+        }
+        IntBuffer ints = ByteBuffer.wrap(raw).asIntBuffer();
+        ints.get(pixels);
+    }
+}
@@ -0,0 +1,169 @@
+package org.cephalus.jogl;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.cephalus.jogl.RawFrameReader.DEFLATE;
+import static org.cephalus.jogl.RawFrameReader.DELTA;
+import static org.cephalus.jogl.RawFrameReader.MAGIC;
+import static org.cephalus.jogl.RawFrameReader.VERSION;
+
+/**
+ * Writes frames as packed RGB ints into the container read by {@link RawFrameReader}. Delta encoding stores
+ * every frame except one in {@link #KEYFRAME_INTERVAL} as the XOR with its predecessor, which turns unchanged
+ * pixels into zeros that fast deflate squeezes well.
+ */
+public class RawFrameWriter implements Closeable {
+
+    public static final int KEYFRAME_INTERVAL = 30;
+
+    private final File file;
+    private final DataOutputStream out;
+    private final boolean delta;
+    private final Deflater deflater;
+    private final List<long[]> index = new ArrayList<>();
+
+    private long position;
+    private int width = -1;
+    private int height;
+    private int[] previous;
+    private int[] current;
+    private byte[] bytes;
+    private byte[] compressed;
+
+    public RawFrameWriter(File file, boolean delta, boolean compress) throws IOException {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        this.delta = delta;
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+    }
+
+    public void write(BufferedImage image) throws IOException {
+        if(width < 0)
+            writeHeader(image.getWidth(), image.getHeight());
+        if(image.getWidth() != width || image.getHeight() != height)
+            throw new IllegalArgumentException("Frame size " + image.getWidth() + "x" + image.getHeight()
+                    + " differs from " + width + "x" + height);
+
+        int[] pixels = ImageComparator.pixels(image);
+        boolean keyframe = !delta || index.size() % KEYFRAME_INTERVAL == 0;
+        IntBuffer ints = ByteBuffer.wrap(bytes).asIntBuffer();
+        for(int i = 0; i < current.length; i++) {
+            current[i] = pixels[i] & 0xFFFFFF;
+            ints.put(keyframe ? current[i] : current[i] ^ previous[i]);
+        }
+        long hash = new XxHash64().update(current, 0, current.length).digest();
+
+        byte[] payload = bytes;
+        int length = bytes.length;
+        if(deflater != null) {
+            deflater.reset();
+            deflater.setInput(bytes);
+            deflater.finish();
+            length = 0;
+            while(!deflater.finished()) {
+                if(length == compressed.length)
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            payload = compressed;
+        }
+
+        out.write(payload, 0, length);
+        index.add(new long[] {position, length, keyframe ? 1 : 0, hash});
+        position += length;
+
+        int[] swap = previous;
+        previous = current;
+        current = swap;
+    }
+
+    /**
+     * Writes the index and closes the file. A container needs at least one frame to know its size, so closing a
+     * writer that was given none deletes the file and throws.
+     */
+    @Override
+    public void close() throws IOException {
+        if(width < 0) {
+            out.close();
+            if(deflater != null)
+                deflater.end();
+            file.delete();
+            throw new IOException("No frames were written to " + file);
+        }
+        try {
+            long indexOffset = position;
+            out.writeInt(index.size());
+            for(long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeByte((int) entry[2]);
+                out.writeLong(entry[3]);
+            }
+            out.writeLong(indexOffset);
+        } finally {
+            out.close();
+            if(deflater != null)
+                deflater.end();
+        }
+    }
+
+    private void writeHeader(int width, int height) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.previous = new int[width * height];
+        this.current = new int[width * height];
+        this.bytes = new byte[width * height * 4];
+        this.compressed = new byte[Math.max(bytes.length / 4, 1024)];
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt((delta ? DELTA : 0) | (deflater != null ? DEFLATE : 0));
+        position = RawFrameReader.HEADER_SIZE;
+    }
+
+    /**
+     * Converts a recorded {@code .zip} reference into a {@code .frames} container, keeping frame order.
+     */
+    public static void convert(File zip, File frames, boolean delta, boolean compress) throws IOException {
+        String prefix = zip.getName().replaceFirst("\\.zip$", "");
+        ReferenceStore store = new ReferenceStore(prefix, ReferenceStore.load(zip.toURI().toURL()));
+        try (RawFrameWriter writer = new RawFrameWriter(frames, delta, compress)) {
+            for(int i = 1; ; i++) {
+                String name = store.name(i);
+                if(name == null)
+                    break;
+                writer.write(store.frame(name));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: RawFrameWriter <reference.zip> <reference.frames> [--delta] [--uncompressed]");
+            System.exit(1);
+        }
+        boolean delta = false;
+        boolean compress = true;
+        for(int i = 2; i < args.length; i++) {
+            if("--delta".equals(args[i]))
+                delta = true;
+            else if("--uncompressed".equals(args[i]))
+                compress = false;
+        }
+        convert(new File(args[0]), new File(args[1]), delta, compress);
+    }
+}
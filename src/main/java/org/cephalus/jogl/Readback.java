@@ -0,0 +1,19 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import static org.cephalus.jogl.Readback.Type.PBO;
+
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Readback {
+
+    Type value() default PBO;
+
+    int buffers() default 2;
+
+    enum Type {
+        SYNC
+        , PBO
+    }
+}
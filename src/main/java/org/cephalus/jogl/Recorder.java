@@ -3,75 +3,315 @@ package org.cephalus.jogl;
 import com.jogamp.common.nio.Buffers;
 import com.jogamp.opengl.GL;
 import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL2GL3;
 import com.jogamp.opengl.GLAutoDrawable;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 public class Recorder {
 
+    private static final Map<GLAutoDrawable, IntBuffer> buffers = new WeakHashMap<>();
+
     private final ZipOutputStream zip;
+    private final RawFrameWriter raw;
     private final File zipFile;
+    private final PixelPackReader reader;
+    private final ExecutorService encoders;
+    private final Deque<EncodedFrame> pending = new ArrayDeque<>();
+    private final int queueSize;
+    private final int compressionLevel;
     private String testName;
     private int frame;
 
     public Recorder(String testName) throws IOException {
+        this(testName, null);
+    }
+
+    public Recorder(String testName, PixelPackReader reader) throws IOException {
+        this(testName, reader, 0, 0, -1);
+    }
+
+    /**
+     * @param encoders number of threads encoding PNGs in parallel, or 0 to encode on the calling thread
+     * @param queueSize number of frames that may be waiting to be written before {@code saveSnapshot} blocks
+     * @param compressionLevel deflate level from 0 (none) to 9 (best), or -1 for the writer's default. It is passed
+     *                         to the PNG {@link ImageWriter} as an explicit compression quality the JDK writer maps
+     *                         back to the same deflate level; writers that cannot apply a compression quality, such
+     *                         as the one in Java 8, are rejected with an {@link IllegalArgumentException}
+     */
+    public Recorder(String testName, PixelPackReader reader, int encoders, int queueSize, int compressionLevel) throws IOException {
+        this(testName, reader, Format.PNG, encoders, queueSize, compressionLevel);
+    }
+
+    public Recorder(String testName, PixelPackReader reader, Format format) throws IOException {
+        this(testName, reader, format, 0, 0, -1);
+    }
+
+    private Recorder(String testName, PixelPackReader reader, Format format, int encoders, int queueSize, int compressionLevel) throws IOException {
         this.testName = testName;
-        zipFile = new File("target/recorded-frames/" + testName + ".zip");
+        this.reader = reader;
+        this.queueSize = Math.max(queueSize, 1);
+        this.compressionLevel = compressionLevel;
+        if(compressionLevel < -1 || compressionLevel > 9)
+            throw new IllegalArgumentException("Compression level " + compressionLevel + " is not between 0 and 9");
+        if(compressionLevel >= 0 && !pngWriter().getDefaultWriteParam().canWriteCompressed())
+            throw new IllegalArgumentException("The PNG writer cannot apply compression level " + compressionLevel);
+        this.encoders = encoders > 0 && format == Format.PNG ? Executors.newFixedThreadPool(encoders, runnable -> {
+            Thread thread = new Thread(runnable, "jogl-junit-encoder");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        zipFile = new File("target/recorded-frames/" + testName + (format == Format.PNG ? ".zip" : ".frames"));
         zipFile.getParentFile().mkdirs();
-        this.zip = new ZipOutputStream(new FileOutputStream(zipFile));
+        if(format == Format.PNG) {
+            this.zip = new ZipOutputStream(new FileOutputStream(zipFile));
+            this.raw = null;
+        } else {
+            this.zip = null;
+            this.raw = new RawFrameWriter(zipFile, format == Format.RAW_DELTA, true);
+        }
     }
 
     public void saveSnapshot(GLAutoDrawable drawable) throws IOException {
-        BufferedImage image = takeSnapshot(drawable);
+        if(reader == null) {
+            saveSnapshot(takeSnapshot(drawable));
+            return;
+        }
+        BufferedImage image = new BufferedImage(drawable.getSurfaceWidth(), drawable.getSurfaceHeight(), BufferedImage.TYPE_INT_RGB);
+        if(reader.read(drawable, image))
+            saveSnapshot(image);
+    }
+
+    public void flush(GLAutoDrawable drawable) throws IOException {
+        if(reader == null)
+            return;
+        while(true) {
+            BufferedImage image = new BufferedImage(drawable.getSurfaceWidth(), drawable.getSurfaceHeight(), BufferedImage.TYPE_INT_RGB);
+            if(!reader.flush(drawable, image))
+                break;
+            saveSnapshot(image);
+        }
+    }
 
+    public void saveSnapshot(BufferedImage image) throws IOException {
         String name = String.format(testName + "_%04d.png", ++frame);
-        ZipEntry snapshot = new ZipEntry(name);
 
-        String format = "PNG";
+        if(raw != null) {
+            raw.write(image);
+            return;
+        }
+
+        if(encoders == null) {
+            zip.putNextEntry(entry(name, XxHash64.hash(image)));
+            encode(image, zip);
+            return;
+        }
+
+        EncodedFrame encoded = new EncodedFrame(name);
+        encoded.png = encoders.submit(() -> {
+            encoded.hash = XxHash64.hash(image);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            encode(image, out);
+            return out.toByteArray();
+        });
+        pending.add(encoded);
+        while(pending.size() > queueSize)
+            writePending();
+    }
+
+    private void writePending() throws IOException {
+        EncodedFrame encoded = pending.poll();
+        byte[] png;
+        try {
+            png = encoded.png.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding " + encoded.name);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if(cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Failed to encode " + encoded.name, cause);
+        }
+        zip.putNextEntry(entry(encoded.name, encoded.hash));
+        zip.write(png);
+    }
+
+    private static ZipEntry entry(String name, long hash) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setComment(ReferenceStore.HASH_PREFIX + XxHash64.toString(hash));
+        return entry;
+    }
+
+    private void encode(BufferedImage image, OutputStream out) throws IOException {
+        ImageWriter writer = pngWriter();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if(compressionLevel >= 0) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(compressionQuality(compressionLevel));
+            }
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static ImageWriter pngWriter() {
+        return ImageIO.getImageWritersByFormatName("PNG").next();
+    }
 
-        zip.putNextEntry(snapshot);
-        ImageIO.write(image, format, zip);
+    /**
+     * The JDK PNG writer uses deflate level {@code (int) (9 * (1 - quality))}; aiming at the middle of the level's
+     * interval keeps float rounding from truncating it to the level below.
+     */
+    static float compressionQuality(int level) {
+        return Math.max(0f, (8.5f - level) / 9f);
     }
 
     public static BufferedImage takeSnapshot(GLAutoDrawable drawable) {
+        int width = drawable.getSurfaceWidth();
+        int height = drawable.getSurfaceHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        takeSnapshot(drawable, image);
+        return image;
+    }
+
+    public static void takeSnapshot(GLAutoDrawable drawable, BufferedImage image) {
         GL2ES3 gl = drawable.getGL().getGL2ES3();
         gl.glFlush();
         gl.glFinish();
-        gl.glReadBuffer(GL.GL_BACK);
+        gl.glBindFramebuffer(GL2ES3.GL_READ_FRAMEBUFFER, gl.getDefaultReadFramebuffer());
+        gl.glReadBuffer(gl.getDefaultReadBuffer());
         int width = drawable.getSurfaceWidth();
         int height = drawable.getSurfaceHeight();
-        int bpp = 4;
-        ByteBuffer buffer = Buffers.newDirectByteBuffer(width * height * bpp);
-        gl.glReadPixels(0, 0, width, height, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, buffer);
+        IntBuffer buffer = pixelBuffer(drawable, width * height);
+        gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+        boolean rgba = readsRgba(gl);
+        if(rgba)
+            gl.glReadPixels(0, 0, width, height, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, buffer);
+        else
+            gl.glReadPixels(0, 0, width, height, GL.GL_BGRA, GL2GL3.GL_UNSIGNED_INT_8_8_8_8_REV, buffer);
+        toImage(buffer, width, height, image, rgba);
+    }
 
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        for(int x = 0; x < width; x++)
-        {
-            for(int y = 0; y < height; y++)
-            {
-                int i = (x + (width * y)) * bpp;
-                int r = buffer.get(i) & 0xFF;
-                int g = buffer.get(i + 1) & 0xFF;
-                int b = buffer.get(i + 2) & 0xFF;
-                image.setRGB(x, height - (y + 1), (0xFF << 24) | (r << 16) | (g << 8) | b);
+    /**
+     * Returns whether frames must be read back as {@code GL_RGBA}/{@code GL_UNSIGNED_BYTE}, the only format ES
+     * guarantees for {@code glReadPixels}. Desktop GL reads packed {@code GL_BGRA} that needs no swizzle.
+     */
+    static boolean readsRgba(GL gl) {
+        return gl.isGLES();
+    }
+
+    /**
+     * Copies bottom-up packed {@code 0xAARRGGBB} pixels into the raster of a {@code TYPE_INT_RGB} image,
+     * flipping rows and dropping the alpha byte.
+     */
+    public static void toImage(IntBuffer pixels, int width, int height, BufferedImage image) {
+        toImage(pixels, width, height, image, false);
+    }
+
+    /**
+     * Like {@link #toImage(IntBuffer, int, int, BufferedImage)}, but with {@code rgba} the pixels are
+     * {@code GL_RGBA}/{@code GL_UNSIGNED_BYTE} bytes read as native-order ints and are swizzled to RGB.
+     */
+    public static void toImage(IntBuffer pixels, int width, int height, BufferedImage image, boolean rgba) {
+        if(image.getType() != BufferedImage.TYPE_INT_RGB || image.getWidth() != width || image.getHeight() != height)
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " TYPE_INT_RGB image");
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        boolean littleEndian = pixels.order() == ByteOrder.LITTLE_ENDIAN;
+        int base = pixels.position();
+        for(int y = 0; y < height; y++) {
+            int row = (height - (y + 1)) * width;
+            pixels.position(base + y * width);
+            pixels.get(data, row, width);
+            if(!rgba) {
+                for(int i = row, end = row + width; i < end; i++)
+                    data[i] &= 0x00FFFFFF;
+            } else if(littleEndian) {
+                for(int i = row, end = row + width; i < end; i++) {
+                    int pixel = data[i];
+                    data[i] = (pixel & 0xFF) << 16 | (pixel & 0xFF00) | (pixel >> 16 & 0xFF);
+                }
+            } else {
+                for(int i = row, end = row + width; i < end; i++)
+                    data[i] >>>= 8;
             }
         }
-        return image;
+        pixels.position(base);
+    }
+
+    private static IntBuffer pixelBuffer(GLAutoDrawable drawable, int size) {
+        synchronized (buffers) {
+            IntBuffer buffer = buffers.get(drawable);
+            if(buffer == null || buffer.capacity() < size) {
+                buffer = Buffers.newDirectIntBuffer(size);
+                buffers.put(drawable, buffer);
+            }
+            buffer.clear();
+            return buffer;
+        }
     }
 
     public void close() throws IOException {
-        zip.flush();
-        zip.close();
+        try {
+            while(!pending.isEmpty())
+                writePending();
+        } finally {
+            if(encoders != null)
+                encoders.shutdownNow();
+            if(raw != null) {
+                raw.close();
+            } else {
+                zip.flush();
+                zip.close();
+            }
+        }
     }
 
     public void clear() {
         zipFile.delete();
     }
+
+    public enum Format {
+        PNG
+        , RAW
+        , RAW_DELTA
+    }
+
+    private static class EncodedFrame {
+        private final String name;
+        private Future<byte[]> png;
+        private long hash;
+
+        public EncodedFrame(String name) {
+            this.name = name;
+        }
+    }
 }
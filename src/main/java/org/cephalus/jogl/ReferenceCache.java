@@ -0,0 +1,244 @@
+package org.cephalus.jogl;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Process-wide cache of decoded reference frames keyed by test class, reference and frame name, evicting the
+ * least recently used frames once the byte budget is exceeded. The shared instance is sized by the
+ * {@code jogl.junit.cache.bytes} system property (0 disables caching) and keeps pixels in direct memory when
+ * {@code jogl.junit.cache.offHeap} is {@code true}. Images returned from a heap cache are shared and must not
+ * be modified. Tile signatures of a cached frame are kept with it, count against the same budget and are evicted
+ * with it, so they also survive off-heap copies.
+ */
+public class ReferenceCache {
+
+    private static final ReferenceCache SHARED = new ReferenceCache(
+            Long.getLong("jogl.junit.cache.bytes", 128L << 20)
+            , Boolean.getBoolean("jogl.junit.cache.offHeap"));
+
+    private final long budget;
+    private final boolean offHeap;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ReferenceCache(long budget, boolean offHeap) {
+        this.budget = budget;
+        this.offHeap = offHeap;
+    }
+
+    public static ReferenceCache shared() {
+        return SHARED;
+    }
+
+    public BufferedImage get(Class<?> javaClass, String reference, String frame, Loader loader) throws IOException {
+        Key key = new Key(javaClass, reference, frame);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if(entry != null)
+                hits++;
+            else
+                misses++;
+        }
+        if(entry != null)
+            return entry.image();
+
+        BufferedImage image = loader.load();
+        if(image == null || budget <= 0)
+            return image;
+        entry = offHeap ? new OffHeapEntry(image) : new HeapEntry(image);
+        if(entry.size() > budget)
+            return image;
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if(previous != null)
+                bytes -= previous.size();
+            bytes += entry.size();
+            evict();
+        }
+        return entry.image();
+    }
+
+    /**
+     * Returns the {@link ImageComparator#signatures} of {@code image}, the decoded frame of {@code javaClass},
+     * {@code reference} and {@code frame}. While that frame is cached they are computed only the first time they
+     * are needed for a tile size.
+     */
+    public long[] signatures(Class<?> javaClass, String reference, String frame, int tileSize, BufferedImage image) {
+        Key key = new Key(javaClass, reference, frame);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if(entry != null) {
+                long[] cached = entry.signatures.get(tileSize);
+                if(cached != null)
+                    return cached;
+            }
+        }
+        long[] computed = ImageComparator.signatures(image, tileSize);
+        if(entry == null)
+            return computed;
+        synchronized (this) {
+            if(entries.get(key) == entry && entry.signatures.putIfAbsent(tileSize, computed) == null) {
+                bytes += (long) computed.length * Long.BYTES;
+                evict();
+            }
+        }
+        return computed;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ReferenceCache[frames=%d, bytes=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                entries.size(), bytes, budget, hits, misses, evictions);
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        BufferedImage load() throws IOException;
+    }
+
+    private static class Key {
+        private final Class<?> javaClass;
+        private final String reference;
+        private final String frame;
+
+        public Key(Class<?> javaClass, String reference, String frame) {
+            this.javaClass = javaClass;
+            this.reference = reference;
+            this.frame = frame;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return javaClass == other.javaClass
+                    && reference.equals(other.reference)
+                    && frame.equals(other.frame);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(javaClass, reference, frame);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while(bytes > budget && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            bytes -= evicted.size();
+            evictions++;
+        }
+    }
+
+    private abstract static class Entry {
+        private final Map<Integer, long[]> signatures = new HashMap<>(4);
+
+        abstract BufferedImage image();
+
+        abstract long pixelBytes();
+
+        long size() {
+            long size = pixelBytes();
+            for(long[] tiles : signatures.values())
+                size += (long) tiles.length * Long.BYTES;
+            return size;
+        }
+    }
+
+    private static class HeapEntry extends Entry {
+        private final BufferedImage image;
+        private final long size;
+
+        public HeapEntry(BufferedImage image) {
+            this.image = image;
+            DataBuffer buffer = image.getRaster().getDataBuffer();
+            this.size = (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        }
+
+        @Override
+        BufferedImage image() {
+            return image;
+        }
+
+        @Override
+        long pixelBytes() {
+            return size;
+        }
+    }
+
+    private static class OffHeapEntry extends Entry {
+        private final int width;
+        private final int height;
+        private final IntBuffer pixels;
+
+        public OffHeapEntry(BufferedImage image) {
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.pixels = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            int[] source = ImageComparator.pixels(image);
+            for(int i = 0, length = width * height; i < length; i++)
+                this.pixels.put(i, source[i] & 0xFFFFFF);
+        }
+
+        @Override
+        BufferedImage image() {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            pixels.duplicate().get(data);
+            return image;
+        }
+
+        @Override
+        long pixelBytes() {
+            return (long) width * height * 4;
+        }
+    }
+}
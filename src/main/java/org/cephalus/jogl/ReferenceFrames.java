@@ -0,0 +1,41 @@
+package org.cephalus.jogl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+public interface ReferenceFrames {
+
+    /**
+     * Returns the name of the 1-based frame {@code index}, or {@code null} if there is no such frame.
+     */
+    String name(int index);
+
+    BufferedImage frame(String name) throws IOException;
+
+    /**
+     * Returns the {@link XxHash64#hash(BufferedImage) content hash} recorded for frame {@code name}, or
+     * {@code null} if the archive does not carry one.
+     */
+    default Long hash(String name) throws IOException {
+        return null;
+    }
+
+    /**
+     * Returns the name frame {@code index} of {@code reference} is recorded under, {@code <test>_0001.png} for the
+     * first frame of a reference named after its test.
+     */
+    static String frameName(String reference, int index) {
+        return String.format("%s_%04d.png", reference.substring(reference.lastIndexOf('/') + 1), index);
+    }
+
+    /**
+     * Opens {@code reference + ".frames"} if present, falling back to {@code reference + ".zip"}.
+     * Returns {@code null} when neither exists.
+     */
+    static ReferenceFrames open(Class<?> javaClass, String reference) throws IOException {
+        ReferenceFrames raw = RawFrameReader.open(javaClass, reference);
+        if(raw != null)
+            return raw;
+        return ReferenceStore.open(javaClass, reference);
+    }
+}
@@ -0,0 +1,244 @@
+package org.cephalus.jogl;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Random access view of a reference frame archive. The zip central directory is indexed up front and the
+ * archive is memory-mapped when it lives on the file system, so any frame can be decoded by name without
+ * inflating the ones before it. Instances are safe to share between threads.
+ */
+public class ReferenceStore implements ReferenceFrames {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    static final String HASH_PREFIX = "xxh64:";
+
+    private final String prefix;
+    private final ByteBuffer archive;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public ReferenceStore(String prefix, ByteBuffer archive) throws IOException {
+        this.prefix = prefix;
+        this.archive = archive.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        index();
+    }
+
+    public static ReferenceStore open(Class<?> javaClass, String reference) throws IOException {
+        URL resource = javaClass.getResource(reference + ".zip");
+        if(resource == null)
+            return null;
+        String prefix = reference.substring(reference.lastIndexOf('/') + 1);
+        return new ReferenceStore(prefix, load(resource));
+    }
+
+    static ByteBuffer load(URL resource) throws IOException {
+        if("file".equals(resource.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(toPath(resource), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try (InputStream in = resource.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[64 * 1024];
+            for(int read; (read = in.read(chunk)) > 0; )
+                out.write(chunk, 0, read);
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+    }
+
+    public List<String> names() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.keySet()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the entry name of the 1-based frame {@code index}, or {@code null} if the archive has no entry of
+     * that name. Frames are never matched by position, so a recording made under another name is not found.
+     */
+    @Override
+    public String name(int index) {
+        String name = ReferenceFrames.frameName(prefix, index);
+        return entries.containsKey(name) ? name : null;
+    }
+
+    public String comment(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : entry.comment;
+    }
+
+    /**
+     * Reads the content hash from an {@code xxh64:<hex>} entry comment, as written by {@link Recorder}.
+     */
+    @Override
+    public Long hash(String name) {
+        String comment = comment(name);
+        if(comment == null || !comment.startsWith(HASH_PREFIX))
+            return null;
+        try {
+            return Long.parseUnsignedLong(comment.substring(HASH_PREFIX.length()), 16);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    public InputStream open(String name) throws IOException {
+        Entry entry = entries.get(name);
+        if(entry == null)
+            return null;
+        ByteBuffer data = entry.data(archive);
+        InputStream in = new ByteBufferInputStream(data);
+        switch (entry.method) {
+            case ZipEntry.STORED:
+                return in;
+            case ZipEntry.DEFLATED:
+                return new InflaterInputStream(in, new Inflater(true), 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        super.close();
+                        inf.end();
+                    }
+                };
+            default:
+                throw new IOException("Unsupported compression method " + entry.method + " for " + name);
+        }
+    }
+
+    @Override
+    public BufferedImage frame(String name) throws IOException {
+        try (InputStream in = open(name)) {
+            if(in == null)
+                return null;
+            return ImageIO.read(in);
+        }
+    }
+
+    private void index() throws IOException {
+        int end = findEndOfCentralDirectory();
+        int count = archive.getShort(end + 10) & 0xFFFF;
+        long offset = archive.getInt(end + 16) & 0xFFFFFFFFL;
+        if(count == 0xFFFF || offset == 0xFFFFFFFFL)
+            throw new IOException("Zip64 reference archives are not supported");
+
+        int position = (int) offset;
+        for(int i = 0; i < count; i++) {
+            if(archive.getInt(position) != CENTRAL_HEADER)
+                throw new IOException("Corrupt central directory at " + position);
+            int method = archive.getShort(position + 10) & 0xFFFF;
+            long compressedSize = archive.getInt(position + 20) & 0xFFFFFFFFL;
+            int nameLength = archive.getShort(position + 28) & 0xFFFF;
+            int extraLength = archive.getShort(position + 30) & 0xFFFF;
+            int commentLength = archive.getShort(position + 32) & 0xFFFF;
+            long localOffset = archive.getInt(position + 42) & 0xFFFFFFFFL;
+            String name = string(position + 46, nameLength);
+            String comment = commentLength == 0 ? null : string(position + 46 + nameLength + extraLength, commentLength);
+            entries.put(name, new Entry(method, (int) localOffset, (int) compressedSize, comment));
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private int findEndOfCentralDirectory() throws IOException {
+        int last = archive.limit() - 22;
+        int first = Math.max(0, last - 0xFFFF);
+        for(int position = last; position >= first; position--) {
+            if(archive.getInt(position) == END_OF_CENTRAL_DIRECTORY)
+                return position;
+        }
+        throw new IOException("Not a zip archive");
+    }
+
+    private String string(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = archive.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Path toPath(URL resource) throws IOException {
+        try {
+            return Paths.get(resource.toURI());
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static class Entry {
+        private final int method;
+        private final int localOffset;
+        private final int compressedSize;
+        private final String comment;
+
+        public Entry(int method, int localOffset, int compressedSize, String comment) {
+            this.method = method;
+            this.localOffset = localOffset;
+            this.compressedSize = compressedSize;
+            this.comment = comment;
+        }
+
+        public ByteBuffer data(ByteBuffer archive) throws IOException {
+            if(archive.getInt(localOffset) != LOCAL_HEADER)
+                throw new IOException("Corrupt local header at " + localOffset);
+            int nameLength = archive.getShort(localOffset + 26) & 0xFFFF;
+            int extraLength = archive.getShort(localOffset + 28) & 0xFFFF;
+            ByteBuffer data = archive.duplicate();
+            data.position(localOffset + 30 + nameLength + extraLength);
+            data.limit(data.position() + compressedSize);
+            return data.slice();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if(length == 0)
+                return 0;
+            if(!buffer.hasRemaining())
+                return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
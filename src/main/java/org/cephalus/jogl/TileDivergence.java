@@ -0,0 +1,49 @@
+package org.cephalus.jogl;
+
+import java.util.Locale;
+
+public class TileDivergence {
+
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final long sum;
+
+    public TileDivergence(int x, int y, int width, int height, long sum) {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.sum = sum;
+    }
+
+    public int x() {
+        return x;
+    }
+
+    public int y() {
+        return y;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public long sum() {
+        return sum;
+    }
+
+    public float divergence() {
+        return sum / (float) (0xFFL * width * height);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "(%d,%d %dx%d)=%.4f", x, y, width, height, divergence());
+    }
+}
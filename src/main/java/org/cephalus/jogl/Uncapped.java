@@ -0,0 +1,13 @@
+package org.cephalus.jogl;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Renders frames back to back with vsync off and without buffer swaps unless {@link Swap} asks for them.
+ * An {@link Fps} on the same or a more specific element keeps the paced animator.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Uncapped {
+    boolean value() default true;
+}
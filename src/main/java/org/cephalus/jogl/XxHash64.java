@@ -0,0 +1,125 @@
+package org.cephalus.jogl;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Streaming xxHash64 over ints, each fed as 4 little-endian bytes. {@link #hash(BufferedImage)} hashes the
+ * packed {@code 0x00RRGGBB} pixels of an image row by row, so the value does not depend on its raster layout.
+ */
+public final class XxHash64 {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private final int[] stripe = new int[8];
+    private int buffered;
+    private long length;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    public XxHash64() {
+        this(0);
+    }
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        v1 = seed + PRIME1 + PRIME2;
+        v2 = seed + PRIME2;
+        v3 = seed;
+        v4 = seed - PRIME1;
+    }
+
+    public static long hash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        XxHash64 hash = new XxHash64();
+        for(int y = 0; y < height; y++) {
+            ImageComparator.row(image, y, row, 0);
+            for(int x = 0; x < width; x++)
+                row[x] &= 0xFFFFFF;
+            hash.update(row, 0, width);
+        }
+        return hash.digest();
+    }
+
+    public static String toString(long hash) {
+        return String.format("%016x", hash);
+    }
+
+    public XxHash64 update(int[] values, int offset, int count) {
+        length += 4L * count;
+        int end = offset + count;
+        while(buffered > 0 && offset < end) {
+            stripe[buffered++] = values[offset++];
+            if(buffered == 8) {
+                consume(stripe, 0);
+                buffered = 0;
+            }
+        }
+        for(; offset + 8 <= end; offset += 8)
+            consume(values, offset);
+        while(offset < end)
+            stripe[buffered++] = values[offset++];
+        return this;
+    }
+
+    public long digest() {
+        long hash;
+        if(length >= 32) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+        hash += length;
+
+        int i = 0;
+        for(; i + 2 <= buffered; i += 2) {
+            hash ^= round(0, lane(stripe, i));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if(i < buffered) {
+            hash ^= (stripe[i] & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private void consume(int[] values, int offset) {
+        v1 = round(v1, lane(values, offset));
+        v2 = round(v2, lane(values, offset + 2));
+        v3 = round(v3, lane(values, offset + 4));
+        v4 = round(v4, lane(values, offset + 6));
+    }
+
+    private static long lane(int[] values, int offset) {
+        return (values[offset] & 0xFFFFFFFFL) | ((long) values[offset + 1] << 32);
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        hash ^= round(0, accumulator);
+        return hash * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,87 @@
+package org.cephalus.jogl.junit;
+
+import org.cephalus.jogl.Baseline;
+import org.cephalus.jogl.FrameStatistics;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the p95 frame times of a {@link FrameTimer} with the {@link Baseline} stored next to the test class.
+ */
+class BaselineCheck {
+
+    private final Class<?> javaClass;
+    private final String reference;
+    private final float tolerance;
+    private final int trials;
+
+    public BaselineCheck(Class<?> javaClass, String reference, float tolerance, int trials) {
+        this.javaClass = javaClass;
+        this.reference = reference;
+        this.tolerance = tolerance;
+        this.trials = trials;
+    }
+
+    public static BaselineCheck create(TestClass testClass, FrameworkMethod testMethod) {
+        Baseline baseline = testMethod.getAnnotation(Baseline.class);
+        if(baseline == null)
+            baseline = testClass.getAnnotation(Baseline.class);
+        if(baseline == null)
+            return null;
+        String reference = baseline.reference().isEmpty() ? testMethod.getName() : baseline.reference();
+        return new BaselineCheck(testClass.getJavaClass(), reference, baseline.tolerance(), baseline.trials());
+    }
+
+    public void check(FrameTimer timer) throws IOException {
+        Properties measured = new Properties();
+        measured.setProperty("frames", Integer.toString(timer.cpuCount()));
+        measured.setProperty("trials", Integer.toString(trials));
+        measured.setProperty("cpu.p95", Long.toString(
+                FrameStatistics.trialPercentile(timer.cpuTimes(), timer.cpuCount(), trials, 95)));
+        if(timer.gpuCount() > 0)
+            measured.setProperty("gpu.p95", Long.toString(
+                    FrameStatistics.trialPercentile(timer.gpuTimes(), timer.gpuCount(), trials, 95)));
+        record(measured);
+
+        URL resource = javaClass.getResource(reference + ".baseline");
+        assertNotNull("Baseline not found!", resource);
+        Properties baseline = new Properties();
+        try (InputStream in = resource.openStream()) {
+            baseline.load(in);
+        }
+        check("cpu.p95", measured, baseline);
+        check("gpu.p95", measured, baseline);
+    }
+
+    private void check(String key, Properties measured, Properties baseline) {
+        String expected = baseline.getProperty(key);
+        String actual = measured.getProperty(key);
+        if(expected == null || actual == null)
+            return;
+        long limit = (long) (Long.parseLong(expected) * (1 + tolerance));
+        long time = Long.parseLong(actual);
+        assertTrue(String.format(Locale.ROOT, "%s %s of %.3f ms exceeds baseline %.3f ms by more than %.0f%%",
+                reference, key, time / 1e6, Long.parseLong(expected) / 1e6, tolerance * 100), time <= limit);
+    }
+
+    private void record(Properties measured) throws IOException {
+        File file = new File("target/recorded-baselines/" + javaClass.getName() + "/"
+                + reference.substring(reference.lastIndexOf('/') + 1) + ".baseline");
+        file.getParentFile().mkdirs();
+        try (OutputStream out = new FileOutputStream(file)) {
+            measured.store(out, javaClass.getName() + "." + reference);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.cephalus.jogl.junit;
+
+import org.cephalus.jogl.CallBudget;
+import org.cephalus.jogl.CallCounter;
+import org.cephalus.jogl.CallCounter.Category;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes the per-frame GL call counts of a test and checks them against its {@link CallBudget}.
+ */
+class BudgetCheck {
+
+    private final String name;
+    private final CallBudget budget;
+
+    public BudgetCheck(String name, CallBudget budget) {
+        this.name = name;
+        this.budget = budget;
+    }
+
+    public static BudgetCheck create(TestClass testClass, FrameworkMethod testMethod) {
+        CallBudget budget = testMethod.getAnnotation(CallBudget.class);
+        if(budget == null)
+            budget = testClass.getAnnotation(CallBudget.class);
+        if(budget == null)
+            return null;
+        return new BudgetCheck(testClass.getName() + "." + testMethod.getName(), budget);
+    }
+
+    public void check(CallCounter counter) throws IOException {
+        write(counter);
+        check("draws", counter.max(Category.DRAWS), counter.maxFrame(Category.DRAWS), budget.draws());
+        check("binds", counter.max(Category.BINDS), counter.maxFrame(Category.BINDS), budget.binds());
+        check("uniform uploads", counter.max(Category.UNIFORMS), counter.maxFrame(Category.UNIFORMS),
+                budget.uniforms());
+        check("buffer uploads", counter.max(Category.BUFFER_UPLOADS), counter.maxFrame(Category.BUFFER_UPLOADS),
+                budget.bufferUploads());
+        check("GL calls", counter.maxCalls(), counter.maxCallsFrame(), budget.calls());
+    }
+
+    private void check(String category, int calls, int frame, int limit) {
+        if(limit < 0)
+            return;
+        assertTrue(String.format(Locale.ROOT, "%s issued %d %s in frame %d, budget is %d",
+                name, calls, category, frame, limit), calls <= limit);
+    }
+
+    File write(CallCounter counter) throws IOException {
+        File file = new File("target/gl-calls/" + name + ".json");
+        file.getParentFile().mkdirs();
+        String json = "{\n"
+                + "  \"test\": \"" + name + "\",\n"
+                + "  \"counts\": " + counter.toJson() + "\n"
+                + "}\n";
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
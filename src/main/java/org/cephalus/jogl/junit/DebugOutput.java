@@ -0,0 +1,100 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.GLDebugListener;
+import com.jogamp.opengl.GLDebugMessage;
+import org.cephalus.jogl.junit.RunnerListener.Phase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects the debug messages of a context, labelled with the phase and frame the runner was in. With synchronous
+ * delivery the label is that of the call that raised a message; otherwise it is the phase or frame current when the
+ * message arrived, and the message says "around" rather than "during".
+ */
+class DebugOutput implements GLDebugListener {
+
+    private final String name;
+    private final boolean synchronous;
+    private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> warnings = Collections.synchronizedList(new ArrayList<>());
+    private volatile Phase phase = Phase.INIT;
+    private volatile int frame;
+    private String extension;
+
+    public DebugOutput(String name, boolean synchronous) {
+        this.name = name;
+        this.synchronous = synchronous;
+    }
+
+    public void attach(GLContext context) {
+        extension = context.getGLDebugMessageExtension();
+        if(extension == null)
+            return;
+        if(!context.isGLDebugMessageEnabled())
+            context.enableGLDebugMessage(true);
+        context.setGLDebugSynchronous(synchronous);
+        context.addGLDebugListener(this);
+    }
+
+    public void detach(GLContext context) {
+        if(extension != null)
+            context.removeGLDebugListener(this);
+    }
+
+    public void phase(Phase phase, int frame) {
+        this.phase = phase;
+        this.frame = frame;
+    }
+
+    public boolean failed() {
+        return !errors.isEmpty();
+    }
+
+    public List<Throwable> errors() {
+        return errors;
+    }
+
+    public List<String> warnings() {
+        return warnings;
+    }
+
+    @Override
+    public void messageSent(GLDebugMessage message) {
+        if(message.getDbgType() == GL2ES2.GL_DEBUG_TYPE_ERROR)
+            errors.add(new AssertionError(describe(message)));
+        else if(message.getDbgType() == GL2ES2.GL_DEBUG_TYPE_PERFORMANCE
+                || message.getDbgSeverity() != GL2ES2.GL_DEBUG_SEVERITY_NOTIFICATION)
+            warnings.add(describe(message));
+    }
+
+    public File write() throws IOException {
+        File file = new File("target/gl-debug/" + name + ".log");
+        if(extension != null && warnings.isEmpty()) {
+            file.delete();
+            return null;
+        }
+        file.getParentFile().mkdirs();
+        List<String> lines = extension == null
+                ? Collections.singletonList("Debug output is not available on this context")
+                : warnings;
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private String describe(GLDebugMessage message) {
+        String where = phase == Phase.DISPLAY ? "frame " + frame : phase.name().toLowerCase(Locale.ROOT);
+        return String.format(Locale.ROOT, "%s: GL %s (%s, id 0x%x) %s %s: %s", name,
+                GLDebugMessage.getDbgTypeString(message.getDbgType()),
+                GLDebugMessage.getDbgSeverityString(message.getDbgSeverity()),
+                message.getDbgId(), synchronous ? "during" : "around", where, message.getDbgMsg());
+    }
+}
@@ -0,0 +1,178 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.common.util.VersionNumber;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import org.cephalus.jogl.FrameBenchmark;
+import org.cephalus.jogl.FrameStatistics;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Times the measured frames of a {@link FrameBenchmark} test on the CPU and, through a ring of
+ * {@code GL_TIME_ELAPSED} queries, on the GPU.
+ */
+class FrameTimer {
+
+    private static final VersionNumber GL_3_3 = new VersionNumber(3, 3, 0);
+
+    private final String name;
+    private final int warmup;
+    private boolean gpu;
+
+    private long[] cpuTimes = new long[128];
+    private long[] gpuTimes = new long[128];
+    private int cpuCount;
+    private int gpuCount;
+
+    private int[] queries;
+    private long issued;
+    private long collected;
+    private long start;
+    private final int[] available = new int[1];
+    private final long[] elapsed = new long[1];
+
+    public FrameTimer(String name, int warmup, boolean gpu) {
+        this.name = name;
+        this.warmup = warmup;
+        this.gpu = gpu;
+    }
+
+    /**
+     * Returns a timer configured by the {@link FrameBenchmark} of the method or class, or, when neither has one,
+     * by the annotation defaults if {@code required} and {@code null} otherwise.
+     */
+    public static FrameTimer create(TestClass testClass, FrameworkMethod testMethod, boolean required) {
+        FrameBenchmark benchmark = testMethod.getAnnotation(FrameBenchmark.class);
+        if(benchmark == null)
+            benchmark = testClass.getAnnotation(FrameBenchmark.class);
+        if(benchmark == null && required)
+            benchmark = Defaults.class.getAnnotation(FrameBenchmark.class);
+        if(benchmark == null)
+            return null;
+        return new FrameTimer(testClass.getName() + "." + testMethod.getName(), benchmark.warmup(), benchmark.gpu());
+    }
+
+    public void begin(GL gl) {
+        if(gpu && queries == null)
+            allocate(gl);
+        if(queries != null) {
+            GL2ES2 gl2 = gl.getGL2ES2();
+            if(issued - collected == queries.length)
+                collect(gl2, collected + 1);
+            gl2.glBeginQuery(GL2ES2.GL_TIME_ELAPSED, queries[(int) (issued % queries.length)]);
+        }
+        start = System.nanoTime();
+    }
+
+    public void end(GL gl) {
+        add(System.nanoTime() - start);
+        if(queries != null) {
+            GL2ES2 gl2 = gl.getGL2ES2();
+            gl2.glEndQuery(GL2ES2.GL_TIME_ELAPSED);
+            issued++;
+            collect(gl2, collected);
+        }
+    }
+
+    public void finish(GL gl) {
+        if(queries != null)
+            collect(gl.getGL2ES2(), issued);
+    }
+
+    /**
+     * Records one CPU frame time in nanoseconds.
+     */
+    void add(long time) {
+        if(cpuCount == cpuTimes.length)
+            cpuTimes = Arrays.copyOf(cpuTimes, cpuCount * 2);
+        cpuTimes[cpuCount++] = time;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int warmup() {
+        return warmup;
+    }
+
+    public long[] cpuTimes() {
+        return cpuTimes;
+    }
+
+    public int cpuCount() {
+        return cpuCount;
+    }
+
+    public long[] gpuTimes() {
+        return gpuTimes;
+    }
+
+    public int gpuCount() {
+        return gpuCount;
+    }
+
+    public void dispose(GL gl) {
+        if(queries != null)
+            gl.getGL2ES2().glDeleteQueries(queries.length, queries, 0);
+        queries = null;
+    }
+
+    public File write() throws IOException {
+        if(cpuCount == 0)
+            return null;
+        File file = new File("target/frame-timings/" + name + ".json");
+        file.getParentFile().mkdirs();
+        String json = "{\n"
+                + "  \"test\": \"" + name + "\",\n"
+                + "  \"warmup\": " + warmup + ",\n"
+                + "  \"cpu\": " + new FrameStatistics(cpuTimes, cpuCount).toJson() + ",\n"
+                + "  \"gpu\": " + (gpuCount == 0 ? "null" : new FrameStatistics(gpuTimes, gpuCount).toJson()) + "\n"
+                + "}\n";
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private void allocate(GL gl) {
+        boolean supported = gl.isGL2ES2()
+                && (gl.getContext().getGLVersionNumber().compareTo(GL_3_3) >= 0
+                || gl.isExtensionAvailable("GL_ARB_timer_query")
+                || gl.isExtensionAvailable("GL_EXT_timer_query"));
+        if(!supported) {
+            gpu = false;
+            return;
+        }
+        queries = new int[4];
+        gl.getGL2ES2().glGenQueries(queries.length, queries, 0);
+    }
+
+    /**
+     * Collects finished queries, waiting for every query issued before {@code until}.
+     */
+    private void collect(GL2ES2 gl, long until) {
+        while(collected < issued) {
+            int query = queries[(int) (collected % queries.length)];
+            if(collected >= until) {
+                gl.glGetQueryObjectuiv(query, GL2ES2.GL_QUERY_RESULT_AVAILABLE, available, 0);
+                if(available[0] == GL.GL_FALSE)
+                    return;
+            }
+            gl.glGetQueryObjectui64v(query, GL2ES2.GL_QUERY_RESULT, elapsed, 0);
+            if(gpuCount == gpuTimes.length)
+                gpuTimes = Arrays.copyOf(gpuTimes, gpuCount * 2);
+            gpuTimes[gpuCount++] = elapsed[0];
+            collected++;
+        }
+    }
+
+    @FrameBenchmark
+    private static class Defaults {
+    }
+}
@@ -0,0 +1,100 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.cephalus.jogl.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Method handles for the {@code @Before}, {@code @Test} and {@code @After} methods of a test class, resolved once
+ * per class. Every handle has the type {@code (Object, GLAutoDrawable)void}, so a frame is dispatched with
+ * {@code invokeExact} and allocates nothing. Methods that cannot take the drawable fall back to
+ * {@link FrameworkMethod#invokeExplosively} and fail the same way they would without the plan.
+ */
+class InvocationPlan {
+
+    static final MethodType TYPE = MethodType.methodType(void.class, Object.class, GLAutoDrawable.class);
+
+    private static final MethodHandle EXPLOSIVELY;
+
+    static {
+        try {
+            EXPLOSIVELY = MethodHandles.lookup().findStatic(InvocationPlan.class, "invokeExplosively",
+                    MethodType.methodType(void.class, FrameworkMethod.class, Object.class, GLAutoDrawable.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final TestClass testClass;
+    private final Configuration defaultConfiguration;
+    private final MethodHandle[] befores;
+    private final MethodHandle[] afters;
+    private final Map<FrameworkMethod, MethodHandle> tests = new HashMap<>();
+
+    public InvocationPlan(TestClass testClass, Configuration defaultConfiguration) {
+        this.testClass = testClass;
+        this.defaultConfiguration = defaultConfiguration;
+        this.befores = handles(testClass.getAnnotatedMethods(Before.class));
+        this.afters = handles(testClass.getAnnotatedMethods(After.class));
+        for(FrameworkMethod test : testClass.getAnnotatedMethods(Test.class))
+            tests.put(test, handle(test));
+    }
+
+    public TestClass testClass() {
+        return testClass;
+    }
+
+    public Configuration defaultConfiguration() {
+        return defaultConfiguration;
+    }
+
+    public MethodHandle[] befores() {
+        return befores;
+    }
+
+    public MethodHandle[] afters() {
+        return afters;
+    }
+
+    public MethodHandle test(FrameworkMethod method) {
+        MethodHandle handle = tests.get(method);
+        return handle != null ? handle : handle(method);
+    }
+
+    static MethodHandle handle(FrameworkMethod frameworkMethod) {
+        Method method = frameworkMethod.getMethod();
+        Class<?>[] parameters = method.getParameterTypes();
+        boolean drawable = parameters.length == 1 && parameters[0].isAssignableFrom(GLAutoDrawable.class);
+        if(Modifier.isStatic(method.getModifiers()) || !drawable)
+            return MethodHandles.insertArguments(EXPLOSIVELY, 0, frameworkMethod);
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(TYPE);
+        } catch (IllegalAccessException ex) {
+            return MethodHandles.insertArguments(EXPLOSIVELY, 0, frameworkMethod);
+        }
+    }
+
+    private static MethodHandle[] handles(List<FrameworkMethod> methods) {
+        MethodHandle[] handles = new MethodHandle[methods.size()];
+        for(int i = 0; i < handles.length; i++)
+            handles[i] = handle(methods.get(i));
+        return handles;
+    }
+
+    private static void invokeExplosively(FrameworkMethod method, Object target, GLAutoDrawable drawable) throws Throwable {
+        method.invokeExplosively(target, drawable);
+    }
+}
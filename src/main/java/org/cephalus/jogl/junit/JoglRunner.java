@@ -2,23 +2,43 @@ package org.cephalus.jogl.junit;
 
 import com.jogamp.nativewindow.WindowClosingProtocol;
 import com.jogamp.newt.opengl.GLWindow;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GL2ES3;
+import com.jogamp.opengl.GL2GL3;
 import com.jogamp.opengl.GLAnimatorControl;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLCapabilities;
+import com.jogamp.opengl.GLContext;
+import com.jogamp.opengl.GLDrawableFactory;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
 import com.jogamp.opengl.util.Animator;
 import com.jogamp.opengl.util.FPSAnimator;
+import org.cephalus.jogl.CallCounter;
 import org.cephalus.jogl.Compare;
+import org.cephalus.jogl.Concurrency;
 import org.cephalus.jogl.Configuration;
+import org.cephalus.jogl.Debug;
 import org.cephalus.jogl.Fps;
+import org.cephalus.jogl.GpuComparator;
 import org.cephalus.jogl.Iterations;
+import org.cephalus.jogl.Offscreen;
+import org.cephalus.jogl.PixelPackReader;
+import org.cephalus.jogl.Pooled;
 import org.cephalus.jogl.Profile;
+import org.cephalus.jogl.Readback;
 import org.cephalus.jogl.Recorder;
+import org.cephalus.jogl.ReferenceCache;
+import org.cephalus.jogl.ReferenceFrames;
 import org.cephalus.jogl.Swap;
+import org.cephalus.jogl.TileDivergence;
+import org.cephalus.jogl.Uncapped;
 import org.cephalus.jogl.Window;
-import org.junit.After;
-import org.junit.Before;
+import org.cephalus.jogl.XxHash64;
+import org.cephalus.jogl.junit.RunnerListener.Phase;
+import org.cephalus.jogl.metric.AbsoluteDifference;
+import org.cephalus.jogl.metric.Metric;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,6 +51,7 @@ import org.junit.runners.ParentRunner;
 import org.junit.runners.model.Annotatable;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
 import org.junit.runners.model.Statement;
 import org.junit.runners.model.TestClass;
 
@@ -39,27 +60,78 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.net.URL;
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.cephalus.jogl.ImageComparator.calculateDivergence;
+import static org.cephalus.jogl.ImageComparator.calculateHierarchicalDivergence;
+import static org.cephalus.jogl.ImageComparator.calculateTileDivergence;
 import static org.cephalus.jogl.ImageComparator.getDifferenceImage;
+import static org.cephalus.jogl.Readback.Type.PBO;
 import static org.cephalus.jogl.Swap.Type.AUTO;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class JoglRunner extends ParentRunner<FrameworkMethod> {
 
-    static {
-        GLProfile.initSingleton();
-    }
+
+    private static final AtomicLong matchedFrames = new AtomicLong();
+    private static final AtomicLong comparedFrames = new AtomicLong();
+
+    private final WindowPool pool = new WindowPool();
+    private final InvocationPlan plan;
 
     public JoglRunner(Class<?> klass) throws InitializationError {
         super(klass);
+        plan = new InvocationPlan(getTestClass(), Runner.class.getAnnotation(Configuration.class));
+        ProfileWarmup.start();
+        Concurrency concurrency = klass.getAnnotation(Concurrency.class);
+        if(concurrency != null && concurrency.value() > 1)
+            setScheduler(new ParallelScheduler(concurrency.value()));
+    }
+
+    /**
+     * Number of frames in this process whose content hash matched the reference, skipping decode and diff.
+     */
+    public static long matchedFrames() {
+        return matchedFrames.get();
+    }
+
+    /**
+     * Number of frames in this process that were decoded and diffed against their reference.
+     */
+    public static long comparedFrames() {
+        return comparedFrames.get();
+    }
+
+    @Override
+    protected Statement classBlock(RunNotifier notifier) {
+        final Statement statement = super.classBlock(notifier);
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                ProfileWarmup.await();
+                try {
+                    statement.evaluate();
+                } finally {
+                    pool.destroyAll();
+                }
+            }
+        };
     }
 
     @Override
@@ -84,28 +156,66 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             notifier.fireTestIgnored(testDescription);
         } else {
             try {
-                new Runner(notifier, getTestClass(), testMethod, testDescription).run();
+                new Runner(notifier, plan, testMethod, testDescription, pool).run();
             } catch (Throwable e) {
                 notifier.fireTestFailure(new Failure(testDescription, e));
             }
         }
     }
 
+    /**
+     * Runs children on a fixed pool of threads. Each child still drives its own animator thread, and
+     * {@link RunNotifier} serializes calls into listeners that are not marked thread safe.
+     */
+    private static class ParallelScheduler implements RunnerScheduler {
+
+        private final ExecutorService executor;
+
+        public ParallelScheduler(int threads) {
+            AtomicInteger count = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "jogl-junit-runner-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            executor.execute(childStatement);
+        }
+
+        @Override
+        public void finished() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     @Configuration
     private static class Runner implements Runnable {
 
         private final RunNotifier notifier;
+        private final InvocationPlan plan;
         private final TestClass testClass;
         private final FrameworkMethod testMethod;
         private final Description testDescription;
+        private final WindowPool pool;
 
         private Object testInstance;
 
-        public Runner(RunNotifier notifier,  TestClass testClass, FrameworkMethod testMethod, Description testDescription) {
+        public Runner(RunNotifier notifier, InvocationPlan plan, FrameworkMethod testMethod, Description testDescription, WindowPool pool) {
             this.notifier = notifier;
-            this.testClass = testClass;
+            this.plan = plan;
+            this.testClass = plan.testClass();
             this.testMethod = testMethod;
             this.testDescription = testDescription;
+            this.pool = pool;
         }
 
         @Override
@@ -113,7 +223,7 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             try {
                 testInstance = testClass.getOnlyConstructor().newInstance();
 
-                Statement test = new LoopRunner(notifier, testClass, testMethod, testDescription, testInstance);
+                Statement test = new LoopRunner(notifier, plan, testMethod, testDescription, testInstance, pool);
                 test = withRules(test);
                 test.evaluate();
             } catch (Throwable ex) {
@@ -131,11 +241,15 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
     private static class LoopRunner extends Statement implements GLEventListener {
 
         private final RunNotifier notifier;
+        private final InvocationPlan plan;
         private final TestClass testClass;
         private final FrameworkMethod testMethod;
+        private final MethodHandle test;
         private final Description testDescription;
         private Object testInstance;
+        private final WindowPool pool;
         private final String title;
+        private final String name;
         private final List<Class<? extends Throwable>> exceptions;
 
         private CombinedConfiguration config;
@@ -144,16 +258,23 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
 
         private int iterations = 0;
 
-        private GLWindow glWindow;
+        private GLAutoDrawable drawable;
         private GLAnimatorControl animator;
+        private WindowKey windowKey;
+        private boolean reused;
+        private CallCounter counter;
 
-        public LoopRunner(RunNotifier notifier, TestClass testClass, FrameworkMethod testMethod, Description testDescription, Object testInstance) {
+        public LoopRunner(RunNotifier notifier, InvocationPlan plan, FrameworkMethod testMethod, Description testDescription, Object testInstance, WindowPool pool) {
             this.notifier = notifier;
-            this.testClass = testClass;
+            this.plan = plan;
+            this.testClass = plan.testClass();
             this.testMethod = testMethod;
+            this.test = plan.test(testMethod);
             this.testDescription = testDescription;
             this.testInstance = testInstance;
+            this.pool = pool;
             this.title = testDescription.getMethodName();
+            this.name = testClass.getName() + "." + testMethod.getName();
             this.exceptions = extractExpectedExceptions(testMethod);
         }
 
@@ -163,14 +284,48 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
 
             config = getConfiguration(testMethod);
 
+            Object event = RunnerEvents.begin(Phase.WINDOW, name, 0);
             createWindow();
+            RunnerEvents.end(event, 0, Float.NaN);
             createGLEventListener();
             createAnimator();
 
             animator.start();
             animator.getThread().join();
 
+            if(config.compare != null)
+                errors.addAll(config.compare.await());
+
+            event = RunnerEvents.begin(Phase.DISPOSE, name, 0);
             disposeWindow();
+            RunnerEvents.end(event, 0, Float.NaN);
+
+            if(config.debugOutput != null) {
+                errors.addAll(config.debugOutput.errors());
+                try {
+                    config.debugOutput.write();
+                } catch (IOException ex) {
+                    errors.add(ex);
+                }
+            }
+
+            if(config.benchmark != null && errors.isEmpty()) {
+                try {
+                    config.benchmark.write();
+                    if(config.baseline != null)
+                        config.baseline.check(config.benchmark);
+                } catch (IOException | AssertionError ex) {
+                    errors.add(ex);
+                }
+            }
+
+            if(counter != null && errors.isEmpty()) {
+                try {
+                    config.budget.check(counter);
+                } catch (IOException | AssertionError ex) {
+                    errors.add(ex);
+                }
+            }
 
             if(!exceptions.isEmpty() && errors.isEmpty()){
                 notifier.fireTestFailure(new Failure(testDescription, new AssertionError("Expected exception: "
@@ -186,61 +341,124 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
         }
 
         public void createWindow() {
+            if(config.pooled) {
+                windowKey = new WindowKey(config);
+                drawable = pool.acquire(windowKey);
+                reused = drawable != null;
+                if(reused) {
+                    if(drawable instanceof GLWindow)
+                        ((GLWindow) drawable).setTitle(title);
+                    return;
+                }
+            }
+            if(config.offscreen)
+                drawable = createOffscreenDrawable();
+            else
+                drawable = createGLWindow();
+        }
+
+        private GLAutoDrawable createGLWindow() {
             int width = config.width;
             int height = config.height;
             GLProfile profile = GLProfile.get(config.profile);
             GLCapabilities capabilities = new GLCapabilities(profile);
-            glWindow = GLWindow.create(capabilities);
+            GLWindow glWindow = GLWindow.create(capabilities);
             glWindow.setSize(width, height);
             glWindow.setTitle(title);
             glWindow.setDefaultCloseOperation(WindowClosingProtocol.WindowClosingMode.DO_NOTHING_ON_CLOSE);
             glWindow.setAutoSwapBufferMode(config.swap);
+            if(config.debug)
+                glWindow.setContextCreationFlags(GLContext.CTX_OPTION_DEBUG);
             glWindow.setVisible(true);
+            return glWindow;
+        }
+
+        private GLAutoDrawable createOffscreenDrawable() {
+            int width = config.width;
+            int height = config.height;
+            GLProfile profile = GLProfile.get(config.profile);
+            GLCapabilities capabilities = new GLCapabilities(profile);
+            capabilities.setOnscreen(false);
+            capabilities.setFBO(true);
+            GLDrawableFactory factory = GLDrawableFactory.getFactory(profile);
+            GLAutoDrawable offscreen = factory.createOffscreenAutoDrawable(null, capabilities, null, width, height);
+            offscreen.setAutoSwapBufferMode(config.swap);
+            if(config.debug)
+                offscreen.setContextCreationFlags(GLContext.CTX_OPTION_DEBUG);
+            return offscreen;
         }
 
         public void disposeWindow() {
-            glWindow.setVisible(false);
-            glWindow.destroy();
-            glWindow = null;
+            if(config.pooled) {
+                animator.remove(drawable);
+                drawable.disposeGLEventListener(this, true);
+                pool.release(windowKey, drawable);
+                drawable = null;
+                return;
+            }
+            destroy(drawable);
+            drawable = null;
         }
 
         public void createAnimator() {
             int fps = config.fps;
-            if(fps > 0)
+            if(config.uncapped) {
+                Animator uncapped = new Animator();
+                uncapped.setRunAsFastAsPossible(true);
+                animator = uncapped;
+            } else if(fps > 0) {
                 animator = new FPSAnimator(config.fps);
-            else
+            } else {
                 animator = new Animator();
-            animator.add(glWindow);
+            }
+            animator.add(drawable);
         }
 
         public void createGLEventListener() {
-            glWindow.addGLEventListener(this);
+            drawable.addGLEventListener(this);
         }
 
-        private void invoke(FrameworkMethod method, final Object... params) {
+        private void invoke(MethodHandle method, GLAutoDrawable drawable) {
             try {
-                method.invokeExplosively(testInstance, params);
+                method.invokeExact(testInstance, drawable);
             } catch (Throwable e) {
                 errors.add(e);
             }
         }
 
-        private void invokeAll(List<FrameworkMethod> methods, final Object... params) {
-            for (FrameworkMethod each : methods) {
-                invoke(each, params);
+        private void invokeAll(MethodHandle[] methods, GLAutoDrawable drawable) {
+            for (MethodHandle each : methods) {
+                invoke(each, drawable);
             }
         }
 
         @Override
         public void init(GLAutoDrawable drawable) {
-            List<FrameworkMethod> befores = testClass.getAnnotatedMethods(Before.class);
-            invokeAll(befores, drawable);
+            Object event = RunnerEvents.begin(Phase.INIT, name, 0);
+            if(config.debugOutput != null)
+                config.debugOutput.attach(drawable.getContext());
+            if(reused)
+                resetState(drawable);
+            if(config.uncapped)
+                drawable.getGL().setSwapInterval(0);
+            if(config.budget != null) {
+                counter = new CallCounter(drawable.getGL());
+            }
+            invokeAll(plan.befores(), drawable);
+            RunnerEvents.end(event, 0, Float.NaN);
         }
 
         @Override
         public void dispose(GLAutoDrawable drawable) {
-            List<FrameworkMethod> afters = testClass.getAnnotatedMethods(After.class);
-            invokeAll(afters, drawable);
+            if(config.debugOutput != null)
+                config.debugOutput.phase(Phase.DISPOSE, iterations);
+            if(config.compare != null)
+                config.compare.dispose(drawable);
+            if(config.benchmark != null)
+                config.benchmark.dispose(drawable.getGL());
+            invokeAll(plan.afters(), drawable);
+            if(config.debugOutput != null)
+                config.debugOutput.detach(drawable.getContext());
         }
 
         @Override
@@ -249,17 +467,106 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
 
         @Override
         public void display(GLAutoDrawable drawable) {
-            if (!errors.isEmpty() || ++iterations > config.iterations) {
+            FrameTimer benchmark = config.benchmark;
+            int warmup = benchmark == null ? 0 : benchmark.warmup();
+            if (failed() || ++iterations > config.iterations + warmup) {
+                if(!failed())
+                    flush(drawable);
+                if(benchmark != null)
+                    benchmark.finish(drawable.getGL());
                 animator.stop();
                 return;
             }
-            invoke(testMethod, drawable);
+            if(config.debugOutput != null)
+                config.debugOutput.phase(Phase.DISPLAY, iterations);
+            Object event = RunnerEvents.begin(Phase.DISPLAY, name, iterations);
+            if(iterations <= warmup) {
+                invoke(test, drawable);
+                RunnerEvents.end(event, 0, Float.NaN);
+                compare(drawable);
+                return;
+            }
+            if(benchmark != null)
+                benchmark.begin(drawable.getGL());
+            if(counter != null) {
+                drawable.setGL(counter.gl());
+                counter.begin();
+            }
+            invoke(test, drawable);
+            if(counter != null) {
+                counter.end();
+                drawable.setGL(counter.original());
+            }
+            if(benchmark != null)
+                benchmark.end(drawable.getGL());
+            RunnerEvents.end(event, 0, Float.NaN);
             compare(drawable);
         }
 
+        private void resetState(GLAutoDrawable drawable) {
+            GL gl = drawable.getGL();
+            gl.glBindFramebuffer(GL.GL_FRAMEBUFFER, gl.getDefaultDrawFramebuffer());
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
+            gl.glActiveTexture(GL.GL_TEXTURE0);
+            gl.glBindTexture(GL.GL_TEXTURE_2D, 0);
+            if(gl.isGL2ES2())
+                gl.getGL2ES2().glUseProgram(0);
+            if(gl.isGL2ES3())
+                gl.getGL2ES3().glBindVertexArray(0);
+            gl.glDisable(GL.GL_BLEND);
+            gl.glDisable(GL.GL_CULL_FACE);
+            gl.glDisable(GL.GL_DEPTH_TEST);
+            gl.glDisable(GL.GL_SCISSOR_TEST);
+            gl.glDisable(GL.GL_STENCIL_TEST);
+            gl.glBlendFunc(GL.GL_ONE, GL.GL_ZERO);
+            gl.glBlendEquation(GL.GL_FUNC_ADD);
+            gl.glDepthFunc(GL.GL_LESS);
+            gl.glCullFace(GL.GL_BACK);
+            gl.glFrontFace(GL.GL_CCW);
+            gl.glPixelStorei(GL.GL_PACK_ALIGNMENT, 4);
+            gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 4);
+            if(gl.isGL2ES3()) {
+                gl.glPixelStorei(GL2ES3.GL_PACK_ROW_LENGTH, 0);
+                gl.glPixelStorei(GL2ES3.GL_UNPACK_ROW_LENGTH, 0);
+                gl.glPixelStorei(GL2ES3.GL_UNPACK_SKIP_ROWS, 0);
+                gl.glPixelStorei(GL2ES3.GL_UNPACK_SKIP_PIXELS, 0);
+            }
+            if(gl.isGL2GL3())
+                gl.getGL2GL3().glPolygonMode(GL.GL_FRONT_AND_BACK, GL2GL3.GL_FILL);
+            if(gl.isGL2())
+                resetFixedFunctionState(gl.getGL2());
+            gl.glColorMask(true, true, true, true);
+            gl.glDepthMask(true);
+            gl.glClearColor(0f, 0f, 0f, 0f);
+            gl.glClearDepth(1.0);
+            gl.glViewport(0, 0, drawable.getSurfaceWidth(), drawable.getSurfaceHeight());
+            gl.glScissor(0, 0, drawable.getSurfaceWidth(), drawable.getSurfaceHeight());
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT | GL.GL_STENCIL_BUFFER_BIT);
+            while(gl.glGetError() != GL.GL_NO_ERROR)
+                ;
+        }
+
+        private void resetFixedFunctionState(GL2 gl) {
+            for(int mode : new int[] {GL2.GL_TEXTURE, GL2.GL_PROJECTION, GL2.GL_MODELVIEW}) {
+                gl.glMatrixMode(mode);
+                gl.glLoadIdentity();
+            }
+            gl.glColor4f(1f, 1f, 1f, 1f);
+            gl.glShadeModel(GL2.GL_SMOOTH);
+            gl.glDisable(GL2.GL_LIGHTING);
+            gl.glDisable(GL2.GL_ALPHA_TEST);
+            gl.glDisable(GL2.GL_COLOR_MATERIAL);
+            gl.glDisable(GL2.GL_FOG);
+            gl.glDisable(GL.GL_TEXTURE_2D);
+            gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+            gl.glDisableClientState(GL2.GL_COLOR_ARRAY);
+            gl.glDisableClientState(GL2.GL_NORMAL_ARRAY);
+            gl.glDisableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+        }
+
         private CombinedConfiguration getConfiguration(final FrameworkMethod testMethod) {
-            Configuration defaultConfiguration = JoglRunner.Runner.class.getAnnotation(Configuration.class);
-            return new CombinedConfiguration(defaultConfiguration, testClass, testMethod);
+            return new CombinedConfiguration(plan.defaultConfiguration(), testClass, testMethod);
         }
 
         private boolean expectedException(Throwable error) {
@@ -276,6 +583,11 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             return Collections.singletonList(test.expected());
         }
 
+        private boolean failed() {
+            return !errors.isEmpty() || (config.compare != null && config.compare.failed())
+                    || (config.debugOutput != null && config.debugOutput.failed());
+        }
+
         private void compare(GLAutoDrawable drawable) {
             if(config.compare != null) {
                 try {
@@ -285,6 +597,16 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
                 }
             }
         }
+
+        private void flush(GLAutoDrawable drawable) {
+            if(config.compare != null) {
+                try {
+                    config.compare.flush(drawable);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }
+        }
     }
 
     private static class CombinedConfiguration {
@@ -294,14 +616,38 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
         private int fps;
         private int iterations;
         private boolean swap;
+        private boolean pooled;
+        private boolean offscreen;
+        private boolean uncapped;
+        private boolean explicitSwap;
+        private boolean debug;
+        private boolean debugSynchronous;
+        private Readback.Type readback;
+        private int readbackBuffers = 2;
         private CombinedCompare compare;
+        private FrameTimer benchmark;
+        private BaselineCheck baseline;
+        private BudgetCheck budget;
+        private DebugOutput debugOutput;
 
         public CombinedConfiguration(Configuration defaultConfiguration, TestClass testClass, FrameworkMethod testMethod) {
             apply(defaultConfiguration);
 
             applyAll(testClass);
             applyAll(testMethod);
-            compare = CombinedCompare.create(testClass, testMethod);
+            Concurrency concurrency = testClass.getAnnotation(Concurrency.class);
+            if(concurrency != null && concurrency.value() > 1)
+                offscreen = true;
+            if(uncapped && !explicitSwap)
+                swap = false;
+            compare = CombinedCompare.create(testClass, testMethod, readback);
+            baseline = BaselineCheck.create(testClass, testMethod);
+            benchmark = FrameTimer.create(testClass, testMethod, baseline != null);
+            budget = BudgetCheck.create(testClass, testMethod);
+            if(debug)
+                debugOutput = new DebugOutput(testClass.getName() + "." + testMethod.getName(), debugSynchronous);
+            if(compare != null && readback == PBO)
+                compare.reader = new PixelPackReader(readbackBuffers);
         }
 
         private void applyAll(Annotatable source) {
@@ -311,12 +657,22 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             apply(profile);
             Window window = source.getAnnotation(Window.class);
             apply(window);
+            Uncapped uncapped = source.getAnnotation(Uncapped.class);
+            apply(uncapped);
             Fps fps = source.getAnnotation(Fps.class);
             apply(fps);
             Iterations iterations = source.getAnnotation(Iterations.class);
             apply(iterations);
             Swap swap = source.getAnnotation(Swap.class);
             apply(swap);
+            Pooled pooled = source.getAnnotation(Pooled.class);
+            apply(pooled);
+            Offscreen offscreen = source.getAnnotation(Offscreen.class);
+            apply(offscreen);
+            Readback readback = source.getAnnotation(Readback.class);
+            apply(readback);
+            Debug debug = source.getAnnotation(Debug.class);
+            apply(debug);
         }
 
         private void apply(Configuration configuration) {
@@ -328,6 +684,11 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             fps = configuration.fps();
             iterations = configuration.iterations();
             swap = configuration.swap() == AUTO;
+            pooled = configuration.pooled();
+            offscreen = configuration.offscreen();
+            readback = configuration.readback();
+            uncapped = configuration.uncapped();
+            debug = configuration.debug();
         }
 
         private void apply(Profile annotation) {
@@ -347,6 +708,7 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             if(annotation == null)
                 return;
             fps = annotation.value();
+            uncapped = false;
         }
 
         private void apply(Iterations annotation) {
@@ -359,25 +721,146 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             if(annotation == null)
                 return;
             swap = annotation.value() == AUTO;
+            explicitSwap = true;
+        }
+
+        private void apply(Pooled annotation) {
+            if(annotation == null)
+                return;
+            pooled = annotation.value();
+        }
+
+        private void apply(Uncapped annotation) {
+            if(annotation == null)
+                return;
+            uncapped = annotation.value();
+        }
+
+        private void apply(Offscreen annotation) {
+            if(annotation == null)
+                return;
+            offscreen = annotation.value();
+        }
+
+        private void apply(Readback annotation) {
+            if(annotation == null)
+                return;
+            readback = annotation.value();
+            readbackBuffers = annotation.buffers();
+        }
+
+        private void apply(Debug annotation) {
+            if(annotation == null)
+                return;
+            debug = annotation.value();
+            debugSynchronous = annotation.synchronous();
+        }
+    }
+
+    private static class WindowKey {
+        private final String profile;
+        private final int width;
+        private final int height;
+        private final boolean swap;
+        private final boolean offscreen;
+        private final boolean uncapped;
+        private final boolean debug;
+
+        public WindowKey(CombinedConfiguration config) {
+            this.profile = config.profile;
+            this.width = config.width;
+            this.height = config.height;
+            this.swap = config.swap;
+            this.offscreen = config.offscreen;
+            this.uncapped = config.uncapped;
+            this.debug = config.debug;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof WindowKey))
+                return false;
+            WindowKey other = (WindowKey) o;
+            return width == other.width
+                    && height == other.height
+                    && swap == other.swap
+                    && offscreen == other.offscreen
+                    && uncapped == other.uncapped
+                    && debug == other.debug
+                    && profile.equals(other.profile);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(profile, width, height, swap, offscreen, uncapped, debug);
+        }
+    }
+
+    private static class WindowPool {
+
+        private final Map<WindowKey, Deque<GLAutoDrawable>> idle = new HashMap<>();
+
+        public synchronized GLAutoDrawable acquire(WindowKey key) {
+            Deque<GLAutoDrawable> windows = idle.get(key);
+            if(windows == null)
+                return null;
+            return windows.poll();
+        }
+
+        public synchronized void release(WindowKey key, GLAutoDrawable drawable) {
+            idle.computeIfAbsent(key, k -> new ArrayDeque<>()).push(drawable);
+        }
+
+        public void destroyAll() {
+            List<GLAutoDrawable> drawables = new ArrayList<>();
+            synchronized (this) {
+                for(Deque<GLAutoDrawable> each : idle.values())
+                    drawables.addAll(each);
+                idle.clear();
+            }
+            for(GLAutoDrawable drawable : drawables)
+                destroy(drawable);
         }
     }
 
+    private static void destroy(GLAutoDrawable drawable) {
+        if(drawable instanceof GLWindow)
+            ((GLWindow) drawable).setVisible(false);
+        drawable.destroy();
+    }
+
     private static class CombinedCompare {
 
         private final Class<?> javaClass;
         private final String methodName;
+        private final String testName;
 
         private String reference;
         private float maxDivergence;
-
-        private ZipInputStream zip;
+        private boolean parallel;
+        private boolean hierarchical;
+        private boolean gpu;
+        private int tileSize;
+        private int workerCount;
+        private int queueSize;
+        private Metric metric = new AbsoluteDifference();
+        private int tolerance;
+
+        private ReferenceFrames store;
+        private PixelPackReader reader;
+        private GpuComparator gpuComparator;
+        private CompareWorkers workers;
+        private int frame;
 
         public CombinedCompare(Class<?> javaClass, String methodName) {
             this.javaClass = javaClass;
             this.methodName = methodName;
+            this.testName = javaClass.getName() + "." + methodName;
         }
 
-        public static CombinedCompare create(TestClass testClass, FrameworkMethod testMethod) {
+        public static CombinedCompare create(TestClass testClass, FrameworkMethod testMethod, Readback.Type readback) {
             Compare methodCompare = testMethod.getAnnotation(Compare.class);
             Compare classCompare = testClass.getAnnotation(Compare.class);
 
@@ -388,21 +871,149 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             instance.apply(testMethod);
             instance.apply(classCompare);
             instance.apply(methodCompare);
+            if(instance.gpu && !(instance.metric instanceof AbsoluteDifference))
+                throw new IllegalArgumentException("@Compare(gpu = true) only supports the "
+                        + AbsoluteDifference.class.getSimpleName() + " metric, not " + instance.metric.getClass().getName());
+            if(instance.gpu && readback == PBO)
+                throw new IllegalArgumentException("@Compare(gpu = true) reads mismatching frames synchronously and"
+                        + " cannot be combined with @Readback(PBO)");
+            if(instance.workerCount > 0)
+                instance.workers = new CompareWorkers(instance.workerCount, instance.queueSize);
+            if(instance.gpu)
+                instance.gpuComparator = new GpuComparator();
             instance.start();
             return instance;
         }
 
         public void compareNext(GLAutoDrawable drawable) {
+            if(gpuComparator != null && compareOnGpu(drawable))
+                return;
+            BufferedImage actual = acquire(drawable);
+            Object event = RunnerEvents.begin(Phase.CAPTURE, testName, frame + 1);
+            boolean captured = reader == null || gpuComparator != null;
+            if(captured)
+                Recorder.takeSnapshot(drawable, actual);
+            else
+                captured = reader.read(drawable, actual);
+            RunnerEvents.end(event, captured ? 4L * actual.getWidth() * actual.getHeight() : 0, Float.NaN);
+            if(captured)
+                submit(actual);
+            else
+                release(actual);
+        }
+
+        /**
+         * Passes the next frame without reading it back when the GPU reduction is clearly within
+         * {@code maxDivergence}; otherwise leaves the frame to the exact CPU comparison.
+         */
+        private boolean compareOnGpu(GLAutoDrawable drawable) {
+            int index = frame + 1;
+            String name = frameName(index);
+            float divergence;
+            Object event = RunnerEvents.begin(Phase.COMPARE, testName, index);
+            try {
+                divergence = gpuComparator.divergence(drawable, name, () -> reference(name).image);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            RunnerEvents.end(event, Float.BYTES, divergence);
+            if(!(divergence <= maxDivergence - GpuComparator.EPSILON))
+                return false;
+            frame = index;
+            return true;
+        }
+
+        private String frameName(int index) {
+            String name = store.name(index);
+            assertNotNull("Reference frame " + ReferenceFrames.frameName(reference, index) + " not found", name);
+            return name;
+        }
+
+        public void flush(GLAutoDrawable drawable) {
+            if(reader == null)
+                return;
+            while(true) {
+                BufferedImage actual = acquire(drawable);
+                if(!reader.flush(drawable, actual)) {
+                    release(actual);
+                    break;
+                }
+                submit(actual);
+            }
+        }
+
+        public void dispose(GLAutoDrawable drawable) {
+            if(reader != null)
+                reader.dispose(drawable.getGL());
+            if(gpuComparator != null)
+                gpuComparator.dispose(drawable.getGL());
+        }
+
+        public boolean failed() {
+            return workers != null && workers.failed();
+        }
+
+        public List<Throwable> await() throws InterruptedException {
+            if(workers == null)
+                return Collections.emptyList();
+            return workers.await();
+        }
+
+        private BufferedImage acquire(GLAutoDrawable drawable) {
+            int width = drawable.getSurfaceWidth();
+            int height = drawable.getSurfaceHeight();
+            if(workers == null)
+                return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            return workers.acquire(width, height);
+        }
+
+        private void release(BufferedImage actual) {
+            if(workers != null)
+                workers.release(actual);
+        }
+
+        private void submit(BufferedImage actual) {
+            int index = ++frame;
+            if(workers == null)
+                compare(index, actual);
+            else
+                workers.submit(this, index, actual);
+        }
+
+        public void compare(int index, BufferedImage actual) {
+            Object event = RunnerEvents.begin(Phase.COMPARE, testName, index);
             try {
-                ZipEntry entry = zip.getNextEntry();
-                BufferedImage expected = ImageIO.read(zip);
-                BufferedImage actual = Recorder.takeSnapshot(drawable);
-                BufferedImage diff = getDifferenceImage(expected, actual);
-                float divergence = calculateDivergence(diff);
+                String name = frameName(index);
+                Long hash = store.hash(name);
+                if(hash != null && hash == XxHash64.hash(actual)) {
+                    matchedFrames.incrementAndGet();
+                    RunnerEvents.end(event, 0, 0f);
+                    return;
+                }
+                comparedFrames.incrementAndGet();
+                ReferenceFrame reference = reference(name);
+                BufferedImage expected = reference.image;
+                TileDivergence[] tiles = null;
+                float divergence;
+                if(!(metric instanceof AbsoluteDifference)) {
+                    divergence = metric.divergence(expected, actual, tolerance, maxDivergence);
+                } else if(parallel) {
+                    tiles = calculateTileDivergence(expected, actual, tileSize, true);
+                    divergence = calculateDivergence(tiles);
+                } else if(hierarchical) {
+                    long[] signatures = ReferenceCache.shared().signatures(javaClass, this.reference, name, tileSize,
+                            expected);
+                    divergence = calculateHierarchicalDivergence(expected, signatures, actual, tileSize);
+                } else {
+                    divergence = calculateDivergence(expected, actual, maxDivergence);
+                }
+                RunnerEvents.end(event, 0, divergence);
+                if(divergence > maxDivergence && tiles == null && metric instanceof AbsoluteDifference)
+                    tiles = calculateTileDivergence(expected, actual, tileSize, false);
                 try {
-                    assertTrue(divergence <= maxDivergence);
+                    assertTrue(describe(reference.name, divergence, tiles), divergence <= maxDivergence);
                 } catch (AssertionError ex) {
-                    save(methodName, entry.getName(), diff);
+                    save(methodName, reference.name, getDifferenceImage(expected, actual));
                     throw ex;
                 }
             } catch (IOException ex) {
@@ -410,6 +1021,31 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             }
         }
 
+        private ReferenceFrame reference(String name) throws IOException {
+            BufferedImage image = ReferenceCache.shared().get(javaClass, reference, name, () -> store.frame(name));
+            return new ReferenceFrame(name, image);
+        }
+
+        private String describe(String frameName, float divergence, TileDivergence[] tiles) {
+            StringBuilder message = new StringBuilder()
+                    .append(frameName)
+                    .append(" diverged by ")
+                    .append(divergence)
+                    .append(" (max ")
+                    .append(maxDivergence)
+                    .append(")");
+            if(tiles != null) {
+                String separator = " in tiles ";
+                for(TileDivergence tile : tiles) {
+                    if(tile.divergence() > maxDivergence) {
+                        message.append(separator).append(tile);
+                        separator = ", ";
+                    }
+                }
+            }
+            return message.toString();
+        }
+
         private void save(String methodName, String frameName, BufferedImage diff) throws IOException {
             File file = new File("target/recorded-frames/diff_" + methodName + "_" + frameName);
             file.getParentFile().mkdirs();
@@ -417,9 +1053,12 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
         }
 
         private void start() {
-            URL resource = javaClass.getResource(reference + ".zip");
-            assertNotNull("Reference not found!", resource);
-            zip = new ZipInputStream(javaClass.getResourceAsStream(reference + ".zip"));
+            try {
+                store = ReferenceFrames.open(javaClass, reference);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            assertNotNull("Reference not found!", store);
         }
 
         private void apply(FrameworkMethod method) {
@@ -434,6 +1073,99 @@ public class JoglRunner extends ParentRunner<FrameworkMethod> {
             if(!compare.reference().isEmpty())
                 this.reference = compare.reference();
             this.maxDivergence = compare.maxDivergence();
+            this.parallel = compare.parallel();
+            this.hierarchical = compare.hierarchical();
+            this.gpu = compare.gpu();
+            this.tileSize = compare.tileSize();
+            this.workerCount = compare.workers();
+            this.queueSize = compare.queueSize();
+            this.tolerance = compare.tolerance();
+            if(compare.metric() != metric.getClass()) {
+                try {
+                    this.metric = compare.metric().getConstructor().newInstance();
+                } catch (ReflectiveOperationException ex) {
+                    throw new IllegalArgumentException("Cannot instantiate metric " + compare.metric().getName(), ex);
+                }
+            }
+        }
+    }
+
+    private static class ReferenceFrame {
+        private final String name;
+        private final BufferedImage image;
+
+        public ReferenceFrame(String name, BufferedImage image) {
+            this.name = name;
+            this.image = image;
+        }
+    }
+
+    private static class CompareWorkers {
+
+        private final int threads;
+        private final int capacity;
+        private final BlockingQueue<BufferedImage> free;
+        private final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        private int allocated;
+        private ExecutorService executor;
+
+        public CompareWorkers(int threads, int capacity) {
+            this.threads = threads;
+            this.capacity = Math.max(capacity, 1);
+            this.free = new ArrayBlockingQueue<>(this.capacity);
+        }
+
+        public BufferedImage acquire(int width, int height) {
+            BufferedImage image = free.poll();
+            if(image == null && allocated < capacity) {
+                allocated++;
+                return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            }
+            try {
+                if(image == null)
+                    image = free.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a comparison worker", ex);
+            }
+            if(image.getWidth() != width || image.getHeight() != height)
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            return image;
+        }
+
+        public void release(BufferedImage image) {
+            free.offer(image);
+        }
+
+        public void submit(CombinedCompare compare, int index, BufferedImage actual) {
+            if(executor == null) {
+                executor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "jogl-junit-compare");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            executor.execute(() -> {
+                try {
+                    compare.compare(index, actual);
+                } catch (Throwable e) {
+                    failures.add(e);
+                } finally {
+                    release(actual);
+                }
+            });
+        }
+
+        public boolean failed() {
+            return !failures.isEmpty();
+        }
+
+        public List<Throwable> await() throws InterruptedException {
+            if(executor != null) {
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            return failures;
         }
     }
 }
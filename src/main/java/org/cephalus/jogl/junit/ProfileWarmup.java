@@ -0,0 +1,58 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GLProfile;
+
+/**
+ * Initializes {@link GLProfile} once per process. By default this happens synchronously when the first runner is
+ * created. With {@code -Djogl.junit.warmup=background} the same full initialization runs on a daemon thread while
+ * JUnit is still discovering tests, and the first class waits for it before {@code @BeforeClass}. JOGL probes every
+ * profile either way; only the point where the wait happens changes.
+ */
+class ProfileWarmup {
+
+    static final String PROPERTY = "jogl.junit.warmup";
+
+    private static boolean started;
+    private static Thread thread;
+    private static Throwable failure;
+
+    private ProfileWarmup() {
+    }
+
+    public static synchronized void start() {
+        if(started)
+            return;
+        started = true;
+        if(!"background".equals(System.getProperty(PROPERTY))) {
+            GLProfile.initSingleton();
+            return;
+        }
+        thread = new Thread(ProfileWarmup::warmup, "jogl-junit-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static void await() throws Throwable {
+        Thread warmup;
+        synchronized (ProfileWarmup.class) {
+            warmup = thread;
+        }
+        if(warmup == null)
+            return;
+        warmup.join();
+        synchronized (ProfileWarmup.class) {
+            if(failure != null)
+                throw failure;
+        }
+    }
+
+    private static void warmup() {
+        try {
+            GLProfile.initSingleton();
+        } catch (Throwable ex) {
+            synchronized (ProfileWarmup.class) {
+                failure = ex;
+            }
+        }
+    }
+}
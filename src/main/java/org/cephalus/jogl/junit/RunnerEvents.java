@@ -0,0 +1,48 @@
+package org.cephalus.jogl.junit;
+
+import org.cephalus.jogl.junit.RunnerListener.Phase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Dispatches runner phases to the {@link RunnerListener}s on the class path.
+ */
+class RunnerEvents {
+
+    private static final RunnerListener[] LISTENERS = load();
+
+    private RunnerEvents() {
+    }
+
+    public static Object begin(Phase phase, String test, int frame) {
+        if(LISTENERS.length == 0)
+            return null;
+        if(LISTENERS.length == 1)
+            return LISTENERS[0].begin(phase, test, frame);
+        Object[] tokens = new Object[LISTENERS.length];
+        for(int i = 0; i < tokens.length; i++)
+            tokens[i] = LISTENERS[i].begin(phase, test, frame);
+        return tokens;
+    }
+
+    public static void end(Object token, long bytes, float divergence) {
+        if(LISTENERS.length == 0)
+            return;
+        if(LISTENERS.length == 1) {
+            LISTENERS[0].end(token, bytes, divergence);
+            return;
+        }
+        Object[] tokens = (Object[]) token;
+        for(int i = 0; i < tokens.length; i++)
+            LISTENERS[i].end(tokens[i], bytes, divergence);
+    }
+
+    private static RunnerListener[] load() {
+        List<RunnerListener> listeners = new ArrayList<>();
+        for(RunnerListener listener : ServiceLoader.load(RunnerListener.class, RunnerEvents.class.getClassLoader()))
+            listeners.add(listener);
+        return listeners.toArray(new RunnerListener[0]);
+    }
+}
@@ -0,0 +1,23 @@
+package org.cephalus.jogl.junit;
+
+/**
+ * Observes the phases of every {@link JoglRunner} test. Implementations are found with {@link java.util.ServiceLoader}
+ * and may be called from the animator thread and from comparison workers at the same time.
+ */
+public interface RunnerListener {
+
+    enum Phase {
+        WINDOW, INIT, DISPLAY, CAPTURE, COMPARE, DISPOSE
+    }
+
+    /**
+     * Called when a phase starts. The returned token, which may be {@code null}, is passed back to {@link #end}.
+     */
+    Object begin(Phase phase, String test, int frame);
+
+    /**
+     * Called when the phase of {@code token} completes, with the bytes read back from the GPU and the divergence
+     * of the frame, or {@code NaN} when the phase does not compare.
+     */
+    void end(Object token, long bytes, float divergence);
+}
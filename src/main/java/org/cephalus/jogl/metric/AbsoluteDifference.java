@@ -0,0 +1,16 @@
+package org.cephalus.jogl.metric;
+
+import org.cephalus.jogl.ImageComparator;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Mean of the per-pixel sum of absolute channel differences, clamped to 255. Ignores the tolerance.
+ */
+public class AbsoluteDifference implements Metric {
+
+    @Override
+    public float divergence(BufferedImage expected, BufferedImage actual, int tolerance, float maxDivergence) {
+        return ImageComparator.calculateDivergence(expected, actual, maxDivergence);
+    }
+}
@@ -0,0 +1,75 @@
+package org.cephalus.jogl.metric;
+
+import org.cephalus.jogl.ImageComparator;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Fraction of differing pixels that cannot be explained by anti-aliasing. A pixel whose channels differ by more
+ * than the tolerance is forgiven when its captured color appears, within the tolerance, among the eight
+ * neighbours of the reference pixel and its reference color appears among the neighbours of the captured
+ * pixel, which is what edges shifted by a sub-pixel amount between drivers look like.
+ */
+public class AntiAliasTolerance implements Metric {
+
+    @Override
+    public float divergence(BufferedImage expected, BufferedImage actual, int tolerance, float maxDivergence) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        assertEquals("Different dimensions", new Dimension(width, height), new Dimension(actual.getWidth(), actual.getHeight()));
+
+        long all = (long) width * height;
+        long sum = 0;
+        int[][] rows1 = new int[3][width];
+        int[][] rows2 = new int[3][width];
+        ImageComparator.row(expected, 0, rows1[1], 0);
+        ImageComparator.row(actual, 0, rows2[1], 0);
+
+        for(int y = 0; y < height; y++) {
+            if(y + 1 < height) {
+                ImageComparator.row(expected, y + 1, rows1[(y + 2) % 3], 0);
+                ImageComparator.row(actual, y + 1, rows2[(y + 2) % 3], 0);
+            }
+            int[] current1 = rows1[(y + 1) % 3];
+            int[] current2 = rows2[(y + 1) % 3];
+            for(int x = 0; x < width; x++) {
+                if(close(current1[x], current2[x], tolerance))
+                    continue;
+                if(neighbourMatches(rows1, y, x, current2[x], width, height, tolerance)
+                        && neighbourMatches(rows2, y, x, current1[x], width, height, tolerance))
+                    continue;
+                sum++;
+            }
+            if(sum / (float) all > maxDivergence)
+                break;
+        }
+        return sum / (float) all;
+    }
+
+    private static boolean neighbourMatches(int[][] rows, int y, int x, int rgb, int width, int height, int tolerance) {
+        for(int dy = -1; dy <= 1; dy++) {
+            int ny = y + dy;
+            if(ny < 0 || ny >= height)
+                continue;
+            int[] row = rows[(ny + 1) % 3];
+            for(int dx = -1; dx <= 1; dx++) {
+                int nx = x + dx;
+                if((dx == 0 && dy == 0) || nx < 0 || nx >= width)
+                    continue;
+                if(close(row[nx], rgb, tolerance))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean close(int rgb1, int rgb2, int tolerance) {
+        return RowMetric.channelDifference(rgb1, rgb2, 16) <= tolerance
+                && RowMetric.channelDifference(rgb1, rgb2, 8) <= tolerance
+                && RowMetric.channelDifference(rgb1, rgb2, 0) <= tolerance;
+    }
+}
@@ -0,0 +1,24 @@
+package org.cephalus.jogl.metric;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Like {@link AbsoluteDifference}, but each channel difference is reduced by the tolerance first, so
+ * low-amplitude noise from rasterizer rounding does not count at all.
+ */
+public class ChannelTolerance extends RowMetric {
+
+    @Override
+    protected int maxScore() {
+        return 0xFF;
+    }
+
+    @Override
+    protected int score(int rgb1, int rgb2, int tolerance) {
+        int r = max(channelDifference(rgb1, rgb2, 16) - tolerance, 0);
+        int g = max(channelDifference(rgb1, rgb2, 8) - tolerance, 0);
+        int b = max(channelDifference(rgb1, rgb2, 0) - tolerance, 0);
+        return min(r + g + b, 0xFF);
+    }
+}
@@ -0,0 +1,19 @@
+package org.cephalus.jogl.metric;
+
+/**
+ * Fraction of pixels where any channel differs by more than the tolerance.
+ */
+public class DifferingPixels extends RowMetric {
+
+    @Override
+    protected int maxScore() {
+        return 1;
+    }
+
+    @Override
+    protected int score(int rgb1, int rgb2, int tolerance) {
+        return channelDifference(rgb1, rgb2, 16) > tolerance
+                || channelDifference(rgb1, rgb2, 8) > tolerance
+                || channelDifference(rgb1, rgb2, 0) > tolerance ? 1 : 0;
+    }
+}
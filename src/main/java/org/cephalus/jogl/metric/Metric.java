@@ -0,0 +1,16 @@
+package org.cephalus.jogl.metric;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Measures how far a captured frame is from its reference, as a value between 0 (identical) and 1.
+ * Implementations need a public no-argument constructor to be selectable from {@code @Compare(metric = ...)}.
+ */
+public interface Metric {
+
+    /**
+     * @param tolerance metric specific per-channel slack, in 0-255 units
+     * @param maxDivergence implementations may stop once the result is known to exceed it and return any value above it
+     */
+    float divergence(BufferedImage expected, BufferedImage actual, int tolerance, float maxDivergence);
+}
@@ -0,0 +1,44 @@
+package org.cephalus.jogl.metric;
+
+import org.cephalus.jogl.ImageComparator;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Base for metrics that score every pixel independently, walking both frames one row at a time.
+ */
+abstract class RowMetric implements Metric {
+
+    @Override
+    public float divergence(BufferedImage expected, BufferedImage actual, int tolerance, float maxDivergence) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        assertEquals("Different dimensions", new Dimension(width, height), new Dimension(actual.getWidth(), actual.getHeight()));
+
+        long all = (long) maxScore() * width * height;
+        long sum = 0;
+        int[] row1 = new int[width];
+        int[] row2 = new int[width];
+        for(int y = 0; y < height; y++) {
+            ImageComparator.row(expected, y, row1, 0);
+            ImageComparator.row(actual, y, row2, 0);
+            for(int x = 0; x < width; x++)
+                sum += score(row1[x], row2[x], tolerance);
+            if(sum / (float) all > maxDivergence)
+                break;
+        }
+        return sum / (float) all;
+    }
+
+    protected abstract int maxScore();
+
+    protected abstract int score(int rgb1, int rgb2, int tolerance);
+
+    static int channelDifference(int rgb1, int rgb2, int shift) {
+        return Math.abs(((rgb1 >> shift) & 0xff) - ((rgb2 >> shift) & 0xff));
+    }
+}
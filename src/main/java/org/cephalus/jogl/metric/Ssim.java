@@ -0,0 +1,85 @@
+package org.cephalus.jogl.metric;
+
+import org.cephalus.jogl.ImageComparator;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * One minus the mean structural similarity of the luma channel over {@value #BLOCK}x{@value #BLOCK} blocks.
+ * Block statistics are accumulated one band of rows at a time, so only a band of sums is kept in memory.
+ * Ignores the tolerance.
+ */
+public class Ssim implements Metric {
+
+    public static final int BLOCK = 8;
+
+    private static final double C1 = (0.01 * 255) * (0.01 * 255);
+    private static final double C2 = (0.03 * 255) * (0.03 * 255);
+
+    @Override
+    public float divergence(BufferedImage expected, BufferedImage actual, int tolerance, float maxDivergence) {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+
+        assertEquals("Different dimensions", new Dimension(width, height), new Dimension(actual.getWidth(), actual.getHeight()));
+
+        int columns = (width + BLOCK - 1) / BLOCK;
+        int bands = (height + BLOCK - 1) / BLOCK;
+        double blocks = (double) columns * bands;
+
+        long[] sx = new long[columns];
+        long[] sy = new long[columns];
+        long[] sxx = new long[columns];
+        long[] syy = new long[columns];
+        long[] sxy = new long[columns];
+        int[] row1 = new int[width];
+        int[] row2 = new int[width];
+
+        double sum = 0;
+        for(int band = 0; band < bands; band++) {
+            Arrays.fill(sx, 0);
+            Arrays.fill(sy, 0);
+            Arrays.fill(sxx, 0);
+            Arrays.fill(syy, 0);
+            Arrays.fill(sxy, 0);
+            int top = band * BLOCK;
+            int bottom = Math.min(top + BLOCK, height);
+            for(int y = top; y < bottom; y++) {
+                ImageComparator.row(expected, y, row1, 0);
+                ImageComparator.row(actual, y, row2, 0);
+                for(int x = 0; x < width; x++) {
+                    int l1 = luma(row1[x]);
+                    int l2 = luma(row2[x]);
+                    int column = x / BLOCK;
+                    sx[column] += l1;
+                    sy[column] += l2;
+                    sxx[column] += l1 * l1;
+                    syy[column] += l2 * l2;
+                    sxy[column] += l1 * l2;
+                }
+            }
+            for(int column = 0; column < columns; column++) {
+                int left = column * BLOCK;
+                double n = (double) (Math.min(left + BLOCK, width) - left) * (bottom - top);
+                double mx = sx[column] / n;
+                double my = sy[column] / n;
+                double vx = sxx[column] / n - mx * mx;
+                double vy = syy[column] / n - my * my;
+                double cov = sxy[column] / n - mx * my;
+                double ssim = ((2 * mx * my + C1) * (2 * cov + C2)) / ((mx * mx + my * my + C1) * (vx + vy + C2));
+                sum += Math.max(0, Math.min(1, 1 - ssim));
+            }
+            if(sum / blocks > maxDivergence)
+                break;
+        }
+        return (float) (sum / blocks);
+    }
+
+    private static int luma(int rgb) {
+        return (77 * ((rgb >> 16) & 0xff) + 150 * ((rgb >> 8) & 0xff) + 29 * (rgb & 0xff)) >> 8;
+    }
+}
@@ -0,0 +1,61 @@
+package org.cephalus.jogl.junit;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Records runner phases as {@code org.cephalus.jogl.RunnerPhase} Java Flight Recorder events.
+ */
+public class JfrRunnerListener implements RunnerListener {
+
+    @Name("org.cephalus.jogl.RunnerPhase")
+    @Label("Runner Phase")
+    @Category({"JOGL", "JoglRunner"})
+    @StackTrace(false)
+    static class RunnerPhaseEvent extends Event {
+        @Label("Test")
+        String test;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Frame")
+        int frame;
+
+        @Label("Bytes Read Back")
+        @DataAmount
+        long bytes;
+
+        @Label("Divergence")
+        float divergence;
+    }
+
+    @Override
+    public Object begin(Phase phase, String test, int frame) {
+        RunnerPhaseEvent event = new RunnerPhaseEvent();
+        if(!event.isEnabled())
+            return null;
+        event.test = test;
+        event.phase = phase.name();
+        event.frame = frame;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(Object token, long bytes, float divergence) {
+        if(token == null)
+            return;
+        RunnerPhaseEvent event = (RunnerPhaseEvent) token;
+        event.end();
+        if(!event.shouldCommit())
+            return;
+        event.bytes = bytes;
+        event.divergence = divergence;
+        event.commit();
+    }
+}
@@ -0,0 +1,127 @@
+package org.cephalus.jogl;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2ES2;
+import org.cephalus.jogl.CallCounter.Category;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CallCounterTest {
+
+    private final List<String> forwarded = new ArrayList<>();
+
+    @Test
+    public void countsCallsByCategory() {
+        CallCounter counter = new CallCounter(fakeGL());
+        GL2ES2 gl = counter.gl().getGL2ES2();
+
+        counter.begin();
+        gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 1);
+        gl.glBufferData(GL.GL_ARRAY_BUFFER, 0, (Buffer) null, GL.GL_STATIC_DRAW);
+        gl.glUseProgram(2);
+        gl.glUniform1f(0, 1f);
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        gl.glDrawBuffers(0, new int[0], 0);
+        counter.end();
+
+        assertThat(counter.calls(Category.BINDS)).isEqualTo(2);
+        assertThat(counter.calls(Category.BUFFER_UPLOADS)).isEqualTo(1);
+        assertThat(counter.calls(Category.UNIFORMS)).isEqualTo(1);
+        assertThat(counter.calls(Category.DRAWS)).isEqualTo(1);
+        assertThat(counter.calls(Category.OTHER)).isEqualTo(1);
+        assertThat(counter.maxCalls()).isEqualTo(6);
+        assertThat(forwarded)
+                .containsExactly("glBindBuffer", "glBufferData", "glUseProgram", "glUniform1f", "glDrawArrays",
+                        "glDrawBuffers");
+    }
+
+    @Test
+    public void onlyCountsInsideFrames() {
+        CallCounter counter = new CallCounter(fakeGL());
+        GL gl = counter.gl();
+
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        counter.begin();
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        counter.end();
+        counter.begin();
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+        counter.end();
+        counter.begin();
+        counter.end();
+        gl.glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+
+        assertThat(counter.frames()).isEqualTo(3);
+        assertThat(counter.total(Category.DRAWS)).isEqualTo(3);
+        assertThat(counter.max(Category.DRAWS)).isEqualTo(2);
+        assertThat(counter.maxFrame(Category.DRAWS)).isEqualTo(2);
+        assertThat(counter.toJson())
+                .contains("\"draws\": {\"max\": 2, \"mean\": 1.000}")
+                .contains("\"calls\": {\"max\": 2, \"mean\": 1.000}");
+        assertThat(forwarded).hasSize(5);
+    }
+
+    @Test
+    public void castsStayCounted() {
+        GL original = fakeGL();
+        CallCounter counter = new CallCounter(original);
+
+        assertThat(counter.original()).isSameAs(original);
+        assertThat(counter.gl().getGL()).isSameAs(counter.gl());
+        assertThat(counter.gl().getGL2ES2()).isSameAs(counter.gl());
+    }
+
+    @Test
+    public void objectMethodsUseTheProxy() {
+        GL original = fakeGL();
+        CallCounter counter = new CallCounter(original);
+        GL gl = counter.gl();
+
+        counter.begin();
+        assertThat(gl.equals(gl)).isTrue();
+        assertThat(gl.equals(original)).isFalse();
+        assertThat(gl.hashCode()).isEqualTo(System.identityHashCode(gl));
+        assertThat(gl.toString()).startsWith("CallCounter[");
+        counter.end();
+
+        assertThat(counter.maxCalls()).isZero();
+        assertThat(forwarded).isEmpty();
+    }
+
+    @Test
+    public void baseQueriesAreNotCounted() {
+        CallCounter counter = new CallCounter(fakeGL());
+        GL gl = counter.gl();
+
+        counter.begin();
+        gl.isGL2();
+        gl.getContext();
+        gl.getGLProfile();
+        gl.glGetError();
+        counter.end();
+
+        assertThat(counter.calls(Category.OTHER)).isEqualTo(1);
+        assertThat(counter.maxCalls()).isEqualTo(1);
+        assertThat(forwarded).containsExactly("isGL2", "getContext", "getGLProfile", "glGetError");
+    }
+
+    private GL fakeGL() {
+        return (GL) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {GL2ES2.class},
+                (proxy, method, args) -> {
+                    forwarded.add(method.getName());
+                    Class<?> type = method.getReturnType();
+                    if(type == boolean.class)
+                        return false;
+                    if(type == int.class)
+                        return 0;
+                    return null;
+                });
+    }
+}
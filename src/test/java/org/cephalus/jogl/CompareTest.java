@@ -134,6 +134,37 @@ public class CompareTest {
         gl.glUseProgram(0);
     }
 
+    @Test
+    @Compare(reference = "triangle")
+    @Readback
+    public void pixelPackTriangle(GLAutoDrawable drawable) {
+        triangle(drawable);
+    }
+
+    @Test
+    @Compare(reference = "triangle", workers = 2)
+    public void backgroundTriangle(GLAutoDrawable drawable) {
+        triangle(drawable);
+    }
+
+    @Test(expected = AssertionError.class)
+    @Compare(reference = "triangle", workers = 2)
+    public void backgroundDifferentTriangle(GLAutoDrawable drawable) {
+        differentTriangle(drawable);
+    }
+
+    @Test
+    @Compare(reference = "triangle", gpu = true)
+    public void gpuTriangle(GLAutoDrawable drawable) {
+        triangle(drawable);
+    }
+
+    @Test(expected = AssertionError.class)
+    @Compare(reference = "triangle", gpu = true)
+    public void gpuDifferentTriangle(GLAutoDrawable drawable) {
+        differentTriangle(drawable);
+    }
+
     @Test(expected = AssertionError.class)
     @Compare(reference = "triangle")
     public void differentTriangle(GLAutoDrawable drawable) {
@@ -0,0 +1,60 @@
+package org.cephalus.jogl;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameStatisticsTest {
+
+    @Test
+    public void nearestRankPercentiles() {
+        long[] samples = new long[200];
+        for(int i = 0; i < 100; i++)
+            samples[i] = 100 - i;
+
+        FrameStatistics statistics = new FrameStatistics(samples, 100);
+
+        assertThat(statistics.count()).isEqualTo(100);
+        assertThat(statistics.min()).isEqualTo(1);
+        assertThat(statistics.max()).isEqualTo(100);
+        assertThat(statistics.mean()).isEqualTo(50.5);
+        assertThat(statistics.percentile(0)).isEqualTo(1);
+        assertThat(statistics.percentile(50)).isEqualTo(50);
+        assertThat(statistics.percentile(95)).isEqualTo(95);
+        assertThat(statistics.percentile(99)).isEqualTo(99);
+        assertThat(statistics.percentile(100)).isEqualTo(100);
+    }
+
+    @Test
+    public void json() {
+        FrameStatistics statistics = new FrameStatistics(new long[] {1_000_000, 3_000_000}, 2);
+
+        assertThat(statistics.toJson()).isEqualTo("{\"count\": 2, \"min\": 1.000000, \"mean\": 2.000000, "
+                + "\"p50\": 1.000000, \"p95\": 3.000000, \"p99\": 3.000000, \"max\": 3.000000}");
+    }
+
+    @Test
+    public void outliersAboveTheUpperFenceAreDropped() {
+        long[] samples = {10, 11, 12, 13, 14, 15, 16, 17, 1000};
+
+        FrameStatistics statistics = new FrameStatistics(samples, samples.length).withoutOutliers();
+
+        assertThat(statistics.count()).isEqualTo(8);
+        assertThat(statistics.max()).isEqualTo(17);
+    }
+
+    @Test
+    public void trialPercentileIgnoresOneSlowTrial() {
+        long[] samples = new long[100];
+        for(int i = 0; i < samples.length; i++)
+            samples[i] = i < 30 ? 50 : 10 + i % 3;
+
+        assertThat(FrameStatistics.trialPercentile(samples, samples.length, 5, 95)).isEqualTo(12);
+        assertThat(FrameStatistics.trialPercentile(samples, samples.length, 1, 95)).isEqualTo(50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noSamples() {
+        new FrameStatistics(new long[0], 0);
+    }
+}
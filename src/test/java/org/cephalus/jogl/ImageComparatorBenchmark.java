@@ -0,0 +1,98 @@
+package org.cephalus.jogl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.min;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageComparatorBenchmark {
+
+    @Param({"640x480", "1280x720", "1920x1080", "3840x2160"})
+    public String size;
+
+    BufferedImage expected;
+    BufferedImage actual;
+    BufferedImage nearMatch;
+    long[] expectedSignatures;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        expected = ImageComparatorTest.randomImage(width, height, BufferedImage.TYPE_3BYTE_BGR, 1);
+        actual = ImageComparatorTest.randomImage(width, height, BufferedImage.TYPE_INT_RGB, 2);
+        nearMatch = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        nearMatch.getGraphics().drawImage(expected, 0, 0, null);
+        nearMatch.setRGB(width / 2, height / 2, ~nearMatch.getRGB(width / 2, height / 2));
+        expectedSignatures = ImageComparator.signatures(expected, 128);
+    }
+
+    @Benchmark
+    public float getRGB() {
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        BufferedImage diff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                diff.setRGB(j, i, ImageComparator.difference(expected.getRGB(j, i), actual.getRGB(j, i)));
+            }
+        }
+        long sum = 0;
+        for(int y = 0; y < height; ++y) {
+            for(int x = 0; x < width; ++x) {
+                int rgb = diff.getRGB(x, y);
+                sum += min(((rgb >> 16) & 0xff) + ((rgb >> 8) & 0xff) + (rgb & 0xff), 0xFF);
+            }
+        }
+        return sum / (float) (0xFFL * width * height);
+    }
+
+    @Benchmark
+    public float raster() {
+        return ImageComparator.calculateDivergence(ImageComparator.getDifferenceImage(expected, actual));
+    }
+
+    @Benchmark
+    public float tiled() {
+        return ImageComparator.calculateDivergence(ImageComparator.calculateTileDivergence(expected, actual, 128, true));
+    }
+
+    @Benchmark
+    public float fused() {
+        return ImageComparator.calculateDivergence(expected, actual, 1f);
+    }
+
+    @Benchmark
+    public float fusedNearMatch() {
+        return ImageComparator.calculateDivergence(expected, nearMatch, 1f);
+    }
+
+    @Benchmark
+    public float hierarchicalNearMatch() {
+        return ImageComparator.calculateHierarchicalDivergence(expected, expectedSignatures, nearMatch, 128);
+    }
+
+    @Benchmark
+    public long contentHash() {
+        return XxHash64.hash(actual);
+    }
+}
@@ -0,0 +1,196 @@
+package org.cephalus.jogl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ImageComparatorTest {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_RGB
+            , BufferedImage.TYPE_INT_ARGB
+            , BufferedImage.TYPE_3BYTE_BGR
+            , BufferedImage.TYPE_4BYTE_ABGR
+            , BufferedImage.TYPE_USHORT_565_RGB
+    };
+
+    @Test
+    public void pixelsMatchGetRGB() {
+        for(int type : TYPES) {
+            BufferedImage image = randomImage(17, 9, type, 1);
+
+            int[] pixels = ImageComparator.pixels(image);
+
+            for(int y = 0; y < image.getHeight(); y++)
+                for(int x = 0; x < image.getWidth(); x++)
+                    assertThat(pixels[y * image.getWidth() + x] & 0xFFFFFF)
+                            .as("type %d at %d,%d", type, x, y)
+                            .isEqualTo(image.getRGB(x, y) & 0xFFFFFF);
+        }
+    }
+
+    @Test
+    public void pixelsOfSubimage() {
+        BufferedImage image = randomImage(16, 16, BufferedImage.TYPE_INT_RGB, 2);
+        BufferedImage sub = image.getSubimage(4, 4, 8, 8);
+
+        int[] pixels = ImageComparator.pixels(sub);
+
+        assertThat(pixels).hasSize(64);
+        assertThat(pixels[9] & 0xFFFFFF).isEqualTo(image.getRGB(5, 5) & 0xFFFFFF);
+    }
+
+    @Test
+    public void differenceMatchesPerPixelDefinition() {
+        for(int type : TYPES) {
+            BufferedImage img1 = randomImage(31, 7, type, 3);
+            BufferedImage img2 = randomImage(31, 7, BufferedImage.TYPE_INT_RGB, 4);
+
+            BufferedImage diff = ImageComparator.getDifferenceImage(img1, img2);
+
+            assertThat(ImageComparator.calculateDivergence(diff))
+                    .isCloseTo(referenceDivergence(img1, img2), within(1e-6f));
+        }
+    }
+
+    @Test
+    public void identicalImagesDoNotDiverge() {
+        BufferedImage image = randomImage(20, 20, BufferedImage.TYPE_3BYTE_BGR, 5);
+
+        BufferedImage diff = ImageComparator.getDifferenceImage(image, image);
+
+        assertThat(ImageComparator.calculateDivergence(diff)).isZero();
+    }
+
+    @Test
+    public void fusedDivergenceMatchesDifferenceImage() {
+        for(int type : TYPES) {
+            BufferedImage img1 = randomImage(23, 11, type, 6);
+            BufferedImage img2 = randomImage(23, 11, BufferedImage.TYPE_3BYTE_BGR, 7);
+
+            float divergence = ImageComparator.calculateDivergence(img1, img2, 1f);
+
+            assertThat(divergence)
+                    .isEqualTo(ImageComparator.calculateDivergence(ImageComparator.getDifferenceImage(img1, img2)));
+        }
+    }
+
+    @Test
+    public void fusedDivergenceStopsAboveThreshold() {
+        BufferedImage img1 = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        BufferedImage img2 = randomImage(100, 100, BufferedImage.TYPE_INT_RGB, 8);
+        float full = ImageComparator.calculateDivergence(img1, img2, 1f);
+
+        float partial = ImageComparator.calculateDivergence(img1, img2, 0.01f);
+
+        assertThat(partial)
+                .isGreaterThan(0.01f)
+                .isLessThan(full);
+    }
+
+    @Test
+    public void tilesCoverTheFrame() {
+        BufferedImage img1 = randomImage(100, 70, BufferedImage.TYPE_3BYTE_BGR, 9);
+        BufferedImage img2 = randomImage(100, 70, BufferedImage.TYPE_INT_RGB, 10);
+
+        TileDivergence[] tiles = ImageComparator.calculateTileDivergence(img1, img2, 32, false);
+
+        assertThat(tiles).hasSize(4 * 3);
+        assertThat(tiles[11].x()).isEqualTo(96);
+        assertThat(tiles[11].y()).isEqualTo(64);
+        assertThat(tiles[11].width()).isEqualTo(4);
+        assertThat(tiles[11].height()).isEqualTo(6);
+        assertThat(ImageComparator.calculateDivergence(tiles))
+                .isEqualTo(ImageComparator.calculateDivergence(img1, img2, 1f));
+    }
+
+    @Test
+    public void tileToStringIgnoresDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            assertThat(new TileDivergence(32, 64, 4, 6, 0xFFL * 12).toString()).isEqualTo("(32,64 4x6)=0.5000");
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void parallelTilesAreDeterministic() {
+        BufferedImage img1 = randomImage(300, 200, BufferedImage.TYPE_INT_RGB, 11);
+        BufferedImage img2 = randomImage(300, 200, BufferedImage.TYPE_4BYTE_ABGR, 12);
+
+        TileDivergence[] sequential = ImageComparator.calculateTileDivergence(img1, img2, 64, false);
+        TileDivergence[] parallel = ImageComparator.calculateTileDivergence(img1, img2, 64, true);
+
+        assertThat(parallel)
+                .extracting(tile -> tile.sum())
+                .containsExactly(Arrays.stream(sequential).map(TileDivergence::sum).toArray(Long[]::new));
+    }
+
+    @Test
+    public void hierarchicalDivergenceMatchesFusedPass() {
+        BufferedImage img1 = randomImage(130, 90, BufferedImage.TYPE_3BYTE_BGR, 13);
+        BufferedImage img2 = copy(img1);
+        img2.setRGB(129, 89, 0x123456);
+        img2.setRGB(5, 70, 0xFFFFFF);
+
+        assertThat(ImageComparator.calculateHierarchicalDivergence(img1, img2, 32))
+                .isEqualTo(ImageComparator.calculateDivergence(img1, img2, 1f));
+        assertThat(ImageComparator.calculateHierarchicalDivergence(img1, copy(img1), 32)).isZero();
+    }
+
+    @Test
+    public void signaturesIgnoreAlphaAndFormat() {
+        BufferedImage img1 = randomImage(40, 40, BufferedImage.TYPE_INT_RGB, 14);
+        BufferedImage img2 = new BufferedImage(40, 40, BufferedImage.TYPE_4BYTE_ABGR);
+        for(int y = 0; y < 40; y++)
+            for(int x = 0; x < 40; x++)
+                img2.setRGB(x, y, 0x7F000000 | img1.getRGB(x, y));
+
+        assertThat(ImageComparator.signatures(img1, 16)).containsExactly(ImageComparator.signatures(img2, 16));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void differentDimensions() {
+        ImageComparator.getDifferenceImage(
+                new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB)
+                , new BufferedImage(2, 3, BufferedImage.TYPE_INT_RGB));
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        copy.getGraphics().drawImage(image, 0, 0, null);
+        return copy;
+    }
+
+    static BufferedImage randomImage(int width, int height, int type, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for(int y = 0; y < height; y++)
+            for(int x = 0; x < width; x++)
+                image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+        return image;
+    }
+
+    static float referenceDivergence(BufferedImage img1, BufferedImage img2) {
+        long sum = 0;
+        for(int y = 0; y < img1.getHeight(); y++) {
+            for(int x = 0; x < img1.getWidth(); x++) {
+                int rgb1 = img1.getRGB(x, y);
+                int rgb2 = img2.getRGB(x, y);
+                int r = Math.abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+                int g = Math.abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+                int b = Math.abs((rgb1 & 0xff) - (rgb2 & 0xff));
+                sum += Math.min(r + g + b, 0xFF);
+            }
+        }
+        return sum / (float) (0xFFL * img1.getWidth() * img1.getHeight());
+    }
+}
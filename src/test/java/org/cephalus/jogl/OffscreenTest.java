@@ -0,0 +1,32 @@
+package org.cephalus.jogl;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import com.jogamp.opengl.GLOffscreenAutoDrawable;
+import org.cephalus.jogl.junit.JoglRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(JoglRunner.class)
+@Iterations(1)
+@Offscreen
+public class OffscreenTest {
+
+    @Test
+    public void offscreen(GLAutoDrawable drawable) {
+        assertThat(drawable)
+                .isInstanceOf(GLOffscreenAutoDrawable.class);
+        assertThat(drawable.getChosenGLCapabilities().isOnscreen())
+                .isFalse();
+    }
+
+    @Test
+    @Window(width = 320, height = 240)
+    public void size(GLAutoDrawable drawable) {
+        assertThat(drawable.getSurfaceWidth())
+                .isEqualTo(320);
+        assertThat(drawable.getSurfaceHeight())
+                .isEqualTo(240);
+    }
+}
@@ -0,0 +1,137 @@
+package org.cephalus.jogl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RawFrameReaderTest {
+
+    @Test
+    public void plain() throws IOException {
+        roundTrip("plain", false, false);
+    }
+
+    @Test
+    public void compressed() throws IOException {
+        roundTrip("compressed", false, true);
+    }
+
+    @Test
+    public void delta() throws IOException {
+        roundTrip("delta", true, true);
+    }
+
+    @Test
+    public void truncatedPayload() throws IOException {
+        ByteBuffer data = container("truncated", false, true);
+        int entry = entry(data, 1);
+        data.putInt(entry + 8, data.getInt(entry + 8) / 2);
+
+        RawFrameReader reader = new RawFrameReader("truncated", data);
+
+        assertThatThrownBy(() -> reader.frame(1))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Corrupt frame 1");
+    }
+
+    @Test
+    public void indexOutOfBounds() throws IOException {
+        ByteBuffer data = container("index", false, false);
+        data.putLong(data.limit() - 8, data.limit());
+
+        assertThatThrownBy(() -> new RawFrameReader("index", data))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Index offset");
+    }
+
+    @Test
+    public void entryOutOfBounds() throws IOException {
+        ByteBuffer data = container("entry", false, true);
+        data.putLong(entry(data, 2), data.limit());
+
+        assertThatThrownBy(() -> new RawFrameReader("entry", data))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Frame 2 out of bounds");
+    }
+
+    @Test
+    public void emptyWriterIsRejected() throws IOException {
+        File frames = new File("target/raw-frames/empty.frames");
+        RawFrameWriter writer = new RawFrameWriter(frames, false, true);
+
+        assertThatThrownBy(writer::close)
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("No frames were written");
+        assertThat(frames).doesNotExist();
+    }
+
+    @Test
+    public void convertZip() throws IOException, URISyntaxException {
+        File zip = new File(RawFrameReaderTest.class.getResource("triangle.zip").toURI());
+        File frames = new File("target/raw-frames/triangle.frames");
+
+        RawFrameWriter.convert(zip, frames, true, true);
+
+        RawFrameReader reader = new RawFrameReader("triangle", ReferenceStore.load(frames.toURI().toURL()));
+        ReferenceStore store = ReferenceStore.open(RawFrameReaderTest.class, "triangle");
+        assertThat(reader.size()).isEqualTo(1);
+        assertThat(reader.name(1)).isEqualTo("triangle_0001.png");
+        assertThat(ImageComparator.calculateDivergence(store.frame("triangle_0001.png"), reader.frame("triangle_0001.png"), 0f))
+                .isZero();
+    }
+
+    private static ByteBuffer container(String name, boolean delta, boolean compress) throws IOException {
+        File file = new File("target/raw-frames/" + name + ".frames");
+        try (RawFrameWriter writer = new RawFrameWriter(file, delta, compress)) {
+            for(int i = 0; i < 3; i++)
+                writer.write(ImageComparatorTest.randomImage(40, 30, BufferedImage.TYPE_INT_RGB, i));
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    private static int entry(ByteBuffer data, int index) {
+        int indexOffset = (int) data.getLong(data.limit() - 8);
+        return indexOffset + 4 + (index - 1) * RawFrameReader.INDEX_ENTRY_SIZE;
+    }
+
+    private static void roundTrip(String name, boolean delta, boolean compress) throws IOException {
+        List<BufferedImage> images = new ArrayList<>();
+        BufferedImage base = ImageComparatorTest.randomImage(40, 30, BufferedImage.TYPE_INT_RGB, 1);
+        for(int i = 0; i < RawFrameWriter.KEYFRAME_INTERVAL + 5; i++) {
+            BufferedImage image = new BufferedImage(40, 30, BufferedImage.TYPE_3BYTE_BGR);
+            image.getGraphics().drawImage(base, 0, 0, null);
+            image.setRGB(i % 40, i % 30, 0xFF00FF00 + i);
+            images.add(image);
+        }
+        File file = new File("target/raw-frames/" + name + ".frames");
+        try (RawFrameWriter writer = new RawFrameWriter(file, delta, compress)) {
+            for(BufferedImage image : images)
+                writer.write(image);
+        }
+
+        RawFrameReader reader = new RawFrameReader(name, ReferenceStore.load(file.toURI().toURL()));
+
+        assertThat(reader.size()).isEqualTo(images.size());
+        assertThat(reader.name(0)).isNull();
+        assertThat(reader.name(images.size() + 1)).isNull();
+        int[] order = {1, 2, 3, 34, 33, 35, 31, 5, 5, 30};
+        for(int index : order) {
+            BufferedImage frame = reader.frame(reader.name(index));
+            assertThat(ImageComparator.calculateDivergence(images.get(index - 1), frame, 0f))
+                    .as("frame %d", index)
+                    .isZero();
+            assertThat(reader.hash(reader.name(index))).isEqualTo(XxHash64.hash(images.get(index - 1)));
+        }
+        assertThat(reader.frame(name + "_9999.png")).isNull();
+    }
+}
@@ -0,0 +1,80 @@
+package org.cephalus.jogl;
+
+import com.jogamp.common.nio.Buffers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecorderBenchmark {
+
+    @Param({"640x480", "1920x1080"})
+    public String size;
+
+    private int width;
+    private int height;
+    private ByteBuffer bytes;
+    private IntBuffer ints;
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        width = Integer.parseInt(dimensions[0]);
+        height = Integer.parseInt(dimensions[1]);
+        Random random = new Random(42);
+        bytes = Buffers.newDirectByteBuffer(width * height * 4);
+        ints = Buffers.newDirectIntBuffer(width * height);
+        for(int i = 0; i < width * height; i++) {
+            int pixel = random.nextInt();
+            bytes.putInt(i * 4, pixel);
+            ints.put(i, pixel);
+        }
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Benchmark
+    public BufferedImage perPixel() {
+        int bpp = 4;
+        ByteBuffer buffer = Buffers.newDirectByteBuffer(width * height * bpp);
+        buffer.put(bytes.duplicate());
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for(int x = 0; x < width; x++)
+        {
+            for(int y = 0; y < height; y++)
+            {
+                int i = (x + (width * y)) * bpp;
+                int r = buffer.get(i) & 0xFF;
+                int g = buffer.get(i + 1) & 0xFF;
+                int b = buffer.get(i + 2) & 0xFF;
+                image.setRGB(x, height - (y + 1), (0xFF << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage rowCopy() {
+        Recorder.toImage(ints, width, height, image);
+        return image;
+    }
+}
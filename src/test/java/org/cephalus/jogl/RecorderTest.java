@@ -0,0 +1,98 @@
+package org.cephalus.jogl;
+
+import com.jogamp.common.nio.Buffers;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecorderTest {
+
+    @Test
+    public void toImageFlipsRows() {
+        IntBuffer pixels = Buffers.newDirectIntBuffer(new int[] {
+                0xFF010203, 0xFF040506
+                , 0x80070809, 0x000A0B0C
+        });
+        BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+
+        Recorder.toImage(pixels, 2, 2, image);
+
+        assertThat(image.getRGB(0, 0)).isEqualTo(0xFF070809);
+        assertThat(image.getRGB(1, 0)).isEqualTo(0xFF0A0B0C);
+        assertThat(image.getRGB(0, 1)).isEqualTo(0xFF010203);
+        assertThat(image.getRGB(1, 1)).isEqualTo(0xFF040506);
+        assertThat(pixels.position()).isZero();
+    }
+
+    @Test
+    public void parallelEncodingKeepsFrameOrder() throws IOException {
+        Recorder recorder = new Recorder("parallelEncoding", null, 3, 2, 1);
+        for(int i = 0; i < 8; i++)
+            recorder.saveSnapshot(ImageComparatorTest.randomImage(64, 32, BufferedImage.TYPE_INT_RGB, i));
+        recorder.close();
+
+        try (ZipInputStream zip = new ZipInputStream(new FileInputStream("target/recorded-frames/parallelEncoding.zip"))) {
+            for(int i = 0; i < 8; i++) {
+                ZipEntry entry = zip.getNextEntry();
+                assertThat(entry.getName()).isEqualTo(String.format("parallelEncoding_%04d.png", i + 1));
+                BufferedImage expected = ImageComparatorTest.randomImage(64, 32, BufferedImage.TYPE_INT_RGB, i);
+                BufferedImage actual = ImageIO.read(zip);
+                assertThat(ImageComparator.calculateDivergence(expected, actual, 0f)).isZero();
+            }
+            assertThat(zip.getNextEntry()).isNull();
+        }
+
+        ReferenceStore store = new ReferenceStore("parallelEncoding",
+                ReferenceStore.load(new File("target/recorded-frames/parallelEncoding.zip").toURI().toURL()));
+        for(int i = 0; i < 8; i++)
+            assertThat(store.hash(store.name(i + 1)))
+                    .isEqualTo(XxHash64.hash(ImageComparatorTest.randomImage(64, 32, BufferedImage.TYPE_INT_RGB, i)));
+    }
+
+    @Test
+    public void toImageSwizzlesRgbaBytes() {
+        for(ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            ByteBuffer bytes = ByteBuffer.wrap(new byte[] {
+                    1, 2, 3, (byte) 0xFF, 4, 5, 6, (byte) 0xFF,
+                    7, 8, 9, (byte) 0x80, 10, 11, 12, 0
+            }).order(order);
+            BufferedImage image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB);
+
+            Recorder.toImage(bytes.asIntBuffer(), 2, 2, image, true);
+
+            assertThat(image.getRGB(0, 0)).as("%s", order).isEqualTo(0xFF070809);
+            assertThat(image.getRGB(1, 0)).as("%s", order).isEqualTo(0xFF0A0B0C);
+            assertThat(image.getRGB(0, 1)).as("%s", order).isEqualTo(0xFF010203);
+            assertThat(image.getRGB(1, 1)).as("%s", order).isEqualTo(0xFF040506);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toImageRejectsWrongSize() {
+        IntBuffer pixels = Buffers.newDirectIntBuffer(4);
+
+        Recorder.toImage(pixels, 2, 2, new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB));
+    }
+
+    @Test
+    public void compressionQualityMapsBackToTheLevel() {
+        for(int level = 0; level <= 9; level++)
+            assertThat((int) (9 * (1f - Recorder.compressionQuality(level)))).isEqualTo(level);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compressionLevelOutOfRange() throws IOException {
+        new Recorder("compressionLevelOutOfRange", null, 0, 0, 10);
+    }
+}
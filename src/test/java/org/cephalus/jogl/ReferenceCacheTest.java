@@ -0,0 +1,105 @@
+package org.cephalus.jogl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void hitsAfterFirstLoad() throws IOException {
+        ReferenceCache cache = new ReferenceCache(1 << 20, false);
+
+        BufferedImage first = cache.get(ReferenceCacheTest.class, "triangle", "triangle_0001.png", this::load);
+        BufferedImage second = cache.get(ReferenceCacheTest.class, "triangle", "triangle_0001.png", this::load);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+        assertThat(cache.bytes()).isEqualTo(16 * 16 * 4);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws IOException {
+        ReferenceCache cache = new ReferenceCache(2 * 16 * 16 * 4, false);
+
+        cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "2", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "3", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "2", this::load);
+
+        assertThat(loads.get()).isEqualTo(4);
+        assertThat(cache.evictions()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void disabledWithoutBudget() throws IOException {
+        ReferenceCache cache = new ReferenceCache(0, false);
+
+        cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void offHeapReturnsCopies() throws IOException {
+        ReferenceCache cache = new ReferenceCache(1 << 20, true);
+
+        BufferedImage first = cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+        BufferedImage second = cache.get(ReferenceCacheTest.class, "a", "1", this::load);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(ImageComparator.calculateDivergence(first, second, 0f)).isZero();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void signaturesSurviveOffHeapCopies() throws IOException {
+        ReferenceCache cache = new ReferenceCache(1 << 20, true);
+
+        long[] first = cache.signatures(ReferenceCacheTest.class, "a", "1", 8,
+                cache.get(ReferenceCacheTest.class, "a", "1", this::load));
+        long[] second = cache.signatures(ReferenceCacheTest.class, "a", "1", 8,
+                cache.get(ReferenceCacheTest.class, "a", "1", this::load));
+        long[] otherSize = cache.signatures(ReferenceCacheTest.class, "a", "1", 16,
+                cache.get(ReferenceCacheTest.class, "a", "1", this::load));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first).hasSize(4);
+        assertThat(otherSize).hasSize(1);
+        cache.clear();
+        assertThat(cache.signatures(ReferenceCacheTest.class, "a", "1", 8, load())).isNotSameAs(first);
+    }
+
+    @Test
+    public void signaturesCountAgainstTheBudgetAndLeaveWithTheirFrame() throws IOException {
+        ReferenceCache cache = new ReferenceCache(2 * 16 * 16 * 4 + 4 * Long.BYTES, false);
+
+        long[] first = cache.signatures(ReferenceCacheTest.class, "a", "1", 8,
+                cache.get(ReferenceCacheTest.class, "a", "1", this::load));
+        assertThat(cache.bytes()).isEqualTo(16 * 16 * 4 + 4 * Long.BYTES);
+        cache.get(ReferenceCacheTest.class, "a", "2", this::load);
+        cache.get(ReferenceCacheTest.class, "a", "3", this::load);
+
+        assertThat(cache.evictions()).isEqualTo(1);
+        assertThat(cache.bytes()).isEqualTo(2 * 16 * 16 * 4);
+        assertThat(cache.signatures(ReferenceCacheTest.class, "a", "1", 8, load())).isNotSameAs(first);
+        assertThat(cache.bytes()).isEqualTo(2 * 16 * 16 * 4);
+    }
+
+    private BufferedImage load() {
+        return ImageComparatorTest.randomImage(16, 16, BufferedImage.TYPE_INT_RGB, loads.incrementAndGet());
+    }
+}
@@ -0,0 +1,86 @@
+package org.cephalus.jogl;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReferenceStoreTest {
+
+    @Test
+    public void openFromClasspath() throws IOException {
+        ReferenceStore store = ReferenceStore.open(ReferenceStoreTest.class, "triangle");
+
+        assertThat(store.names()).containsExactly("triangle_0001.png");
+        assertThat(store.name(1)).isEqualTo("triangle_0001.png");
+        assertThat(store.name(2)).isNull();
+        BufferedImage frame = store.frame("triangle_0001.png");
+        assertThat(frame.getWidth()).isEqualTo(640);
+        assertThat(frame.getHeight()).isEqualTo(480);
+    }
+
+    @Test
+    public void missingReference() throws IOException {
+        assertThat(ReferenceStore.open(ReferenceStoreTest.class, "missing")).isNull();
+    }
+
+    @Test
+    public void randomAccessToStoredAndDeflatedEntries() throws IOException {
+        BufferedImage first = ImageComparatorTest.randomImage(8, 8, BufferedImage.TYPE_INT_RGB, 1);
+        BufferedImage second = ImageComparatorTest.randomImage(8, 8, BufferedImage.TYPE_INT_RGB, 2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            writeEntry(zip, "recorded_0001.png", first, ZipEntry.DEFLATED, "first");
+            writeEntry(zip, "recorded_0002.png", second, ZipEntry.STORED, null);
+        }
+
+        ReferenceStore store = new ReferenceStore("recorded", ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(store.name(2)).isEqualTo("recorded_0002.png");
+        assertThat(store.comment("recorded_0001.png")).isEqualTo("first");
+        assertThat(store.comment("recorded_0002.png")).isNull();
+        assertThat(ImageComparator.calculateDivergence(second, store.frame(store.name(2)), 0f)).isZero();
+        assertThat(ImageComparator.calculateDivergence(first, store.frame(store.name(1)), 0f)).isZero();
+    }
+
+    @Test
+    public void framesAreNotMatchedByPosition() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            writeEntry(zip, "renamed_0001.png", ImageComparatorTest.randomImage(8, 8, BufferedImage.TYPE_INT_RGB, 1),
+                    ZipEntry.DEFLATED, null);
+        }
+
+        ReferenceStore store = new ReferenceStore("reference", ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(store.names()).containsExactly("renamed_0001.png");
+        assertThat(store.name(1)).isNull();
+    }
+
+    private static void writeEntry(ZipOutputStream zip, String name, BufferedImage image, int method, String comment) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", png);
+        byte[] data = png.toByteArray();
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        entry.setComment(comment);
+        if(method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,39 @@
+package org.cephalus.jogl;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class XxHash64Test {
+
+    @Test
+    public void knownValues() {
+        int[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        assertThat(new XxHash64().digest()).isEqualTo(0xEF46DB3751D8E999L);
+        assertThat(new XxHash64().update(values, 0, values.length).digest()).isEqualTo(0xF918D63F618A8445L);
+    }
+
+    @Test
+    public void chunkingDoesNotMatter() {
+        int[] values = ImageComparator.pixels(ImageComparatorTest.randomImage(13, 7, BufferedImage.TYPE_INT_RGB, 1));
+        XxHash64 chunked = new XxHash64(42);
+        for(int i = 0; i < values.length; i += 3)
+            chunked.update(values, i, Math.min(3, values.length - i));
+
+        assertThat(chunked.digest()).isEqualTo(new XxHash64(42).update(values, 0, values.length).digest());
+    }
+
+    @Test
+    public void imageHashIgnoresRasterLayout() {
+        BufferedImage rgb = ImageComparatorTest.randomImage(21, 5, BufferedImage.TYPE_INT_RGB, 2);
+        BufferedImage bgr = new BufferedImage(21, 5, BufferedImage.TYPE_3BYTE_BGR);
+        bgr.getGraphics().drawImage(rgb, 0, 0, null);
+
+        assertThat(XxHash64.hash(bgr)).isEqualTo(XxHash64.hash(rgb));
+        bgr.setRGB(20, 4, ~bgr.getRGB(20, 4));
+        assertThat(XxHash64.hash(bgr)).isNotEqualTo(XxHash64.hash(rgb));
+    }
+}
@@ -0,0 +1,47 @@
+package org.cephalus.jogl.junit;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BaselineCheckTest {
+
+    @Test
+    public void withinBaseline() throws IOException {
+        new BaselineCheck(BaselineCheckTest.class, "generous", 0.2f, 1).check(timer(1_000_000));
+
+        assertThat(new File("target/recorded-baselines/" + BaselineCheckTest.class.getName() + "/generous.baseline"))
+                .exists();
+    }
+
+    @Test
+    public void exceedsBaseline() {
+        BaselineCheck check = new BaselineCheck(BaselineCheckTest.class, "strict", 0.5f, 1);
+
+        assertThatThrownBy(() -> check.check(timer(2_000_000)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessage("strict cpu.p95 of 2.000 ms exceeds baseline 0.001 ms by more than 50%");
+    }
+
+    @Test
+    public void missingBaseline() {
+        BaselineCheck check = new BaselineCheck(BaselineCheckTest.class, "missing", 0.2f, 1);
+
+        assertThatThrownBy(() -> check.check(timer(1_000_000)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessage("Baseline not found!");
+        assertThat(new File("target/recorded-baselines/" + BaselineCheckTest.class.getName() + "/missing.baseline"))
+                .exists();
+    }
+
+    private static FrameTimer timer(long time) {
+        FrameTimer timer = new FrameTimer("baseline", 0, false);
+        for(int i = 0; i < 10; i++)
+            timer.add(time);
+        return timer;
+    }
+}
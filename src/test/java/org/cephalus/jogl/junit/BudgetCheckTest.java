@@ -0,0 +1,83 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GLAutoDrawable;
+import org.cephalus.jogl.CallBudget;
+import org.cephalus.jogl.CallCounter;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BudgetCheckTest {
+
+    @Test
+    public void withinBudget() throws IOException {
+        BudgetCheck check = check("inherited");
+
+        check.check(counter(1, 2));
+
+        File file = new File("target/gl-calls/" + BudgetedTest.class.getName() + ".inherited.json");
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .contains("\"frames\": 2")
+                .contains("\"draws\": {\"max\": 2, \"mean\": 1.500}");
+    }
+
+    @Test
+    public void overBudget() {
+        BudgetCheck check = check("overridden");
+
+        assertThatThrownBy(() -> check.check(counter(1, 2)))
+                .isInstanceOf(AssertionError.class)
+                .hasMessage(BudgetedTest.class.getName() + ".overridden issued 2 draws in frame 2, budget is 1");
+    }
+
+    @Test
+    public void withoutBudget() throws NoSuchMethodException {
+        assertThat(BudgetCheck.create(new TestClass(BudgetCheckTest.class),
+                new FrameworkMethod(BudgetCheckTest.class.getMethod("withoutBudget")))).isNull();
+    }
+
+    private static BudgetCheck check(String method) {
+        try {
+            return BudgetCheck.create(new TestClass(BudgetedTest.class),
+                    new FrameworkMethod(BudgetedTest.class.getMethod(method, GLAutoDrawable.class)));
+        } catch (NoSuchMethodException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private static CallCounter counter(int... draws) {
+        GL gl = (GL) Proxy.newProxyInstance(BudgetCheckTest.class.getClassLoader(), new Class<?>[] {GL.class},
+                (proxy, method, args) -> null);
+        CallCounter counter = new CallCounter(gl);
+        for(int frame : draws) {
+            counter.begin();
+            for(int i = 0; i < frame; i++)
+                counter.gl().glDrawArrays(GL.GL_TRIANGLES, 0, 3);
+            counter.end();
+        }
+        return counter;
+    }
+
+    @CallBudget(draws = 2, binds = 0)
+    public static class BudgetedTest {
+
+        @Test
+        public void inherited(GLAutoDrawable drawable) {
+        }
+
+        @Test
+        @CallBudget(draws = 1)
+        public void overridden(GLAutoDrawable drawable) {
+        }
+    }
+}
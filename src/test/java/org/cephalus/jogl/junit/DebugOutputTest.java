@@ -0,0 +1,103 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLDebugMessage;
+import org.cephalus.jogl.junit.RunnerListener.Phase;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DebugOutputTest {
+
+    @Test
+    public void errorsFailWithTheirFrame() {
+        DebugOutput output = new DebugOutput("debug.errors", true);
+
+        output.phase(Phase.DISPLAY, 3);
+        output.messageSent(message(GL2ES2.GL_DEBUG_TYPE_ERROR, GL2ES2.GL_DEBUG_SEVERITY_HIGH, "invalid enum"));
+
+        assertThat(output.failed()).isTrue();
+        assertThat(output.errors())
+                .hasSize(1)
+                .first()
+                .isInstanceOf(AssertionError.class)
+                .extracting(Throwable::getMessage)
+                .asString()
+                .startsWith("debug.errors: GL ")
+                .endsWith("during frame 3: invalid enum");
+    }
+
+    @Test
+    public void asynchronousMessagesAreLabelledApproximately() {
+        DebugOutput output = new DebugOutput("debug.asynchronous", false);
+
+        output.phase(Phase.DISPLAY, 3);
+        output.messageSent(message(GL2ES2.GL_DEBUG_TYPE_ERROR, GL2ES2.GL_DEBUG_SEVERITY_HIGH, "invalid enum"));
+
+        assertThat(output.errors())
+                .hasSize(1)
+                .first()
+                .extracting(Throwable::getMessage)
+                .asString()
+                .endsWith("around frame 3: invalid enum");
+    }
+
+    @Test
+    public void warningsAreLabelledByPhase() {
+        DebugOutput output = new DebugOutput("debug.warnings", true);
+
+        output.messageSent(message(GL2ES2.GL_DEBUG_TYPE_PORTABILITY, GL2ES2.GL_DEBUG_SEVERITY_MEDIUM, "portability"));
+        output.phase(Phase.DISPOSE, 2);
+        output.messageSent(message(GL2ES2.GL_DEBUG_TYPE_OTHER, GL2ES2.GL_DEBUG_SEVERITY_LOW, "other"));
+
+        assertThat(output.failed()).isFalse();
+        assertThat(output.warnings())
+                .hasSize(2)
+                .satisfies(warnings -> {
+                    assertThat(warnings.get(0)).endsWith("during init: portability");
+                    assertThat(warnings.get(1)).endsWith("during dispose: other");
+                });
+    }
+
+    @Test
+    public void notificationsAreDropped() {
+        DebugOutput output = new DebugOutput("debug.notifications", true);
+
+        output.messageSent(message(GL2ES2.GL_DEBUG_TYPE_OTHER, GL2ES2.GL_DEBUG_SEVERITY_NOTIFICATION, "buffer info"));
+
+        assertThat(output.warnings()).isEmpty();
+        assertThat(output.failed()).isFalse();
+    }
+
+    @Test
+    public void performanceNotificationsAreKept() {
+        DebugOutput output = new DebugOutput("debug.performance", true);
+
+        output.phase(Phase.DISPLAY, 1);
+        output.messageSent(message(GL2ES2.GL_DEBUG_TYPE_PERFORMANCE, GL2ES2.GL_DEBUG_SEVERITY_NOTIFICATION,
+                "buffer moved to system memory"));
+
+        assertThat(output.warnings())
+                .hasSize(1)
+                .first()
+                .asString()
+                .endsWith("during frame 1: buffer moved to system memory");
+    }
+
+    @Test
+    public void unavailableDebugOutputIsReported() throws IOException {
+        File file = new DebugOutput("debug.unavailable", true).write();
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .startsWith("Debug output is not available");
+    }
+
+    private static GLDebugMessage message(int type, int severity, String text) {
+        return new GLDebugMessage(null, 0, GL2ES2.GL_DEBUG_SOURCE_API, type, 1, severity, text);
+    }
+}
@@ -0,0 +1,83 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.cephalus.jogl.FrameBenchmark;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameTimerTest {
+
+    @Test
+    public void createFromMethodOrClass() throws NoSuchMethodException {
+        TestClass testClass = new TestClass(BenchmarkedTest.class);
+
+        FrameTimer inherited = FrameTimer.create(testClass, method("inherited"), false);
+        FrameTimer overridden = FrameTimer.create(testClass, method("overridden"), false);
+
+        assertThat(inherited.name()).isEqualTo(BenchmarkedTest.class.getName() + ".inherited");
+        assertThat(inherited.warmup()).isEqualTo(3);
+        assertThat(overridden.warmup()).isEqualTo(7);
+        assertThat(FrameTimer.create(new TestClass(FrameTimerTest.class), new FrameworkMethod(
+                FrameTimerTest.class.getMethod("createFromMethodOrClass")), false)).isNull();
+    }
+
+    @Test
+    public void requiredTimerUsesAnnotationDefaults() throws NoSuchMethodException {
+        FrameTimer timer = FrameTimer.create(new TestClass(FrameTimerTest.class), new FrameworkMethod(
+                FrameTimerTest.class.getMethod("createFromMethodOrClass")), true);
+
+        assertThat(timer.warmup()).isEqualTo((int) FrameBenchmark.class.getMethod("warmup").getDefaultValue());
+    }
+
+    @Test
+    public void cpuOnlyTimingsWithoutGL() throws IOException {
+        FrameTimer timer = new FrameTimer("timer.cpuOnly", 0, false);
+
+        for(int i = 0; i < 3; i++) {
+            timer.begin(null);
+            timer.end(null);
+        }
+        timer.finish(null);
+        timer.add(1_000_000);
+
+        assertThat(timer.cpuCount()).isEqualTo(4);
+        assertThat(timer.gpuCount()).isZero();
+        File file = timer.write();
+        assertThat(file).isEqualTo(new File("target/frame-timings/timer.cpuOnly.json"));
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .contains("\"test\": \"timer.cpuOnly\"")
+                .contains("\"cpu\": {\"count\": 4,")
+                .contains("\"max\": 1.000000}")
+                .contains("\"gpu\": null");
+    }
+
+    @Test
+    public void nothingToWrite() throws IOException {
+        assertThat(new FrameTimer("timer.empty", 0, false).write()).isNull();
+    }
+
+    private static FrameworkMethod method(String name) throws NoSuchMethodException {
+        return new FrameworkMethod(BenchmarkedTest.class.getMethod(name, GLAutoDrawable.class));
+    }
+
+    @FrameBenchmark(warmup = 3)
+    public static class BenchmarkedTest {
+
+        @Test
+        public void inherited(GLAutoDrawable drawable) {
+        }
+
+        @Test
+        @FrameBenchmark(warmup = 7)
+        public void overridden(GLAutoDrawable drawable) {
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.cephalus.jogl.junit;
+
+import com.jogamp.opengl.GLAutoDrawable;
+import org.cephalus.jogl.junit.RunnerListener.Phase;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.TestClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame dispatch overhead of an empty test method, reflective versus through {@link InvocationPlan}. The
+ * {@code invoke*} benchmarks time the test invocation alone; the {@code display*} benchmarks add what
+ * {@code LoopRunner.display()} does around it when no compare, benchmark, budget or debug output is configured:
+ * the iteration and failure checks, the {@link RunnerEvents} begin and end, and collecting a thrown error.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InvocationPlanBenchmark {
+
+    private static final String NAME = EmptyTest.class.getName() + ".empty";
+
+    Object target;
+    GLAutoDrawable drawable;
+    FrameworkMethod method;
+    MethodHandle handle;
+    List<Throwable> errors = new ArrayList<>();
+    int iterations;
+
+    @Setup
+    public void setup() {
+        TestClass testClass = new TestClass(EmptyTest.class);
+        target = new EmptyTest();
+        method = testClass.getAnnotatedMethods(Test.class).get(0);
+        handle = new InvocationPlan(testClass, null).test(method);
+    }
+
+    @Benchmark
+    public void invokeExplosively() throws Throwable {
+        method.invokeExplosively(target, drawable);
+    }
+
+    @Benchmark
+    public void invokeMethodHandle() throws Throwable {
+        handle.invokeExact(target, drawable);
+    }
+
+    @Benchmark
+    public void displayExplosively() {
+        if(!errors.isEmpty() || ++iterations == Integer.MAX_VALUE)
+            iterations = 0;
+        Object event = RunnerEvents.begin(Phase.DISPLAY, NAME, iterations);
+        try {
+            method.invokeExplosively(target, drawable);
+        } catch (Throwable e) {
+            errors.add(e);
+        }
+        RunnerEvents.end(event, 0, Float.NaN);
+    }
+
+    @Benchmark
+    public void displayMethodHandle() {
+        if(!errors.isEmpty() || ++iterations == Integer.MAX_VALUE)
+            iterations = 0;
+        Object event = RunnerEvents.begin(Phase.DISPLAY, NAME, iterations);
+        try {
+            handle.invokeExact(target, drawable);
+        } catch (Throwable e) {
+            errors.add(e);
+        }
+        RunnerEvents.end(event, 0, Float.NaN);
+    }
+
+    public static class EmptyTest {
+
+        @Test
+        public void empty(GLAutoDrawable drawable) {
+        }
+    }
+}
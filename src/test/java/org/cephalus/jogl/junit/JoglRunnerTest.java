@@ -1,7 +1,17 @@
 package org.cephalus.jogl.junit;
 
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
 import com.jogamp.opengl.GLAutoDrawable;
+import org.cephalus.jogl.Baseline;
+import org.cephalus.jogl.CallBudget;
+import org.cephalus.jogl.Concurrency;
+import org.cephalus.jogl.Debug;
+import org.cephalus.jogl.FrameBenchmark;
 import org.cephalus.jogl.Iterations;
+import org.cephalus.jogl.Offscreen;
+import org.cephalus.jogl.Pooled;
+import org.cephalus.jogl.Uncapped;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -18,10 +28,15 @@ import org.junit.runner.RunWith;
 import org.junit.runner.manipulation.Filter;
 import org.junit.runner.notification.Failure;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -37,6 +52,114 @@ public class JoglRunnerTest {
                 .containsExactly("beforeClass", "before", "test1", "after", "before", "test2", "after", "afterClass");
     }
 
+    @Test
+    public void pooled() {
+        PooledTest.drawables.clear();
+        PooledTest.states.clear();
+
+        TestRun run = runTestClass(PooledTest.class);
+
+        assertThat(run.result.getFailures())
+                .isEmpty();
+        assertThat(run.methods)
+                .containsExactly("beforeClass", "before", "test1", "after", "before", "test2", "after", "afterClass");
+        assertThat(PooledTest.drawables)
+                .hasSize(2)
+                .allMatch(drawable -> drawable == PooledTest.drawables.get(0));
+        assertThat(PooledTest.states)
+                .containsExactly(PooledTest.DEFAULT_STATE, PooledTest.DEFAULT_STATE);
+    }
+
+    @Test
+    public void concurrent() {
+        TestRun run = runTestClass(ConcurrentTest.class);
+
+        assertThat(run.result.getFailures())
+                .isEmpty();
+        assertThat(run.result.getRunCount())
+                .isEqualTo(4);
+        assertThat(run.methods)
+                .hasSize(14)
+                .startsWith("beforeClass")
+                .endsWith("afterClass")
+                .contains("test1", "test2", "test3", "test4");
+    }
+
+    @Test
+    public void uncapped() {
+        long start = System.nanoTime();
+        TestRun run = runTestClass(UncappedTest.class);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(run.result.getFailures())
+                .isEmpty();
+        assertThat(run.methods)
+                .hasSize(300);
+        assertThat(elapsed)
+                .as("300 frames at 60 fps would take 5 s")
+                .isLessThan(5000);
+    }
+
+    @Test
+    public void frameBenchmark() throws IOException {
+        File report = new File("target/frame-timings/" + FrameBenchmarkTest.class.getName() + ".test.json");
+        report.delete();
+
+        TestRun run = runTestClass(FrameBenchmarkTest.class);
+
+        assertThat(run.result.getFailures())
+                .isEmpty();
+        assertThat(run.methods)
+                .hasSize(15);
+        assertThat(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8))
+                .contains("\"warmup\": 5")
+                .contains("\"cpu\": {\"count\": 10,");
+    }
+
+    @Test
+    public void baseline() {
+        TestRun run = runTestClass(BaselineTest.class);
+
+        assertThat(run.result.getFailures())
+                .extracting(f -> f.getDescription().getMethodName())
+                .containsExactly("missing");
+        assertThat(run.result.getFailures().get(0).getMessage())
+                .isEqualTo("Baseline not found!");
+        assertThat(new File("target/recorded-baselines/" + BaselineTest.class.getName() + "/generous.baseline"))
+                .exists();
+    }
+
+    @Test
+    public void callBudget() throws IOException {
+        File report = new File("target/gl-calls/" + CallBudgetTest.class.getName() + ".withinBudget.json");
+        report.delete();
+
+        TestRun run = runTestClass(CallBudgetTest.class);
+
+        assertThat(run.result.getFailures())
+                .extracting(f -> f.getDescription().getMethodName())
+                .containsExactly("overBudget");
+        assertThat(run.result.getFailures().get(0).getMessage())
+                .endsWith("overBudget issued 2 draws in frame 1, budget is 1");
+        assertThat(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8))
+                .contains("\"frames\": 3")
+                .contains("\"draws\": {\"max\": 1, \"mean\": 1.000}");
+    }
+
+    @Test
+    public void debugOutput() {
+        TestRun run = runTestClass(DebugTest.class);
+
+        assertThat(run.result.getFailures())
+                .extracting(f -> f.getDescription().getMethodName())
+                .containsExactly("invalidEnum");
+        assertThat(run.result.getFailures().get(0).getMessage())
+                .startsWith(DebugTest.class.getName() + ".invalidEnum: GL ")
+                .contains("during frame 1:");
+        assertThat(run.methods)
+                .containsExactlyInAnyOrder("clean", "clean", "clean", "invalidEnum");
+    }
+
     @Test
     public void filterFullyAnnotated() {
         Filter filter = new Filter() {
@@ -155,6 +278,226 @@ public class JoglRunnerTest {
         }
     }
 
+    @RunWith(JoglRunner.class)
+    @Iterations(1)
+    @Pooled
+    public static class PooledTest {
+
+        static final String DEFAULT_STATE = "blend=1,0 depth=513 cull=1029 front=2305 unpack=4 polygon=6914"
+                + " matrix=5888 modelview=1.0 color=1.0";
+
+        static final List<GLAutoDrawable> drawables = new ArrayList<>();
+        static final List<String> states = new ArrayList<>();
+
+        private static void add(String methodName) {
+            methodCalls.get(PooledTest.class).add(methodName);
+        }
+
+        private static String state(GL2 gl) {
+            int[] values = new int[7];
+            gl.glGetIntegerv(GL.GL_BLEND_SRC_RGB, values, 0);
+            gl.glGetIntegerv(GL.GL_BLEND_DST_RGB, values, 1);
+            gl.glGetIntegerv(GL.GL_DEPTH_FUNC, values, 2);
+            gl.glGetIntegerv(GL.GL_CULL_FACE_MODE, values, 3);
+            gl.glGetIntegerv(GL.GL_FRONT_FACE, values, 4);
+            gl.glGetIntegerv(GL.GL_UNPACK_ALIGNMENT, values, 5);
+            gl.glGetIntegerv(GL2.GL_MATRIX_MODE, values, 6);
+            int[] polygon = new int[2];
+            gl.glGetIntegerv(GL2.GL_POLYGON_MODE, polygon, 0);
+            float[] modelview = new float[16];
+            gl.glGetFloatv(GL2.GL_MODELVIEW_MATRIX, modelview, 0);
+            float[] color = new float[4];
+            gl.glGetFloatv(GL2.GL_CURRENT_COLOR, color, 0);
+            return "blend=" + values[0] + "," + values[1] + " depth=" + values[2] + " cull=" + values[3]
+                    + " front=" + values[4] + " unpack=" + values[5] + " polygon=" + polygon[0]
+                    + " matrix=" + values[6] + " modelview=" + modelview[0] + " color=" + color[1];
+        }
+
+        private static void dirty(GL2 gl) {
+            gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+            gl.glDepthFunc(GL.GL_ALWAYS);
+            gl.glCullFace(GL.GL_FRONT);
+            gl.glFrontFace(GL.GL_CW);
+            gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 1);
+            gl.glPolygonMode(GL.GL_FRONT_AND_BACK, GL2.GL_LINE);
+            gl.glMatrixMode(GL2.GL_MODELVIEW);
+            gl.glScalef(2f, 2f, 2f);
+            gl.glMatrixMode(GL2.GL_PROJECTION);
+            gl.glColor4f(1f, 0f, 0f, 1f);
+        }
+
+        @BeforeClass
+        public static void beforeClass() {
+            add("beforeClass");
+        }
+
+        @AfterClass
+        public static void afterClass() {
+            add("afterClass");
+        }
+
+        @Before
+        public void before(GLAutoDrawable drawable) {
+            add("before");
+            drawables.add(drawable);
+            states.add(state(drawable.getGL().getGL2()));
+        }
+
+        @After
+        public void after(GLAutoDrawable drawable) {
+            add("after");
+        }
+
+        @Test
+        public void test1(GLAutoDrawable drawable) {
+            add("test1");
+            dirty(drawable.getGL().getGL2());
+        }
+
+        @Test
+        public void test2(GLAutoDrawable drawable) {
+            add("test2");
+            dirty(drawable.getGL().getGL2());
+        }
+    }
+
+    @RunWith(JoglRunner.class)
+    @Iterations(1)
+    @Offscreen
+    @Concurrency(2)
+    public static class ConcurrentTest {
+
+        private static void add(String methodName) {
+            List<String> calls = methodCalls.get(ConcurrentTest.class);
+            synchronized (calls) {
+                calls.add(methodName);
+            }
+        }
+
+        @BeforeClass
+        public static void beforeClass() {
+            add("beforeClass");
+        }
+
+        @AfterClass
+        public static void afterClass() {
+            add("afterClass");
+        }
+
+        @Before
+        public void before(GLAutoDrawable drawable) {
+            add("before");
+        }
+
+        @After
+        public void after(GLAutoDrawable drawable) {
+            add("after");
+        }
+
+        @Test
+        public void test1(GLAutoDrawable drawable) {
+            add("test1");
+        }
+
+        @Test
+        public void test2(GLAutoDrawable drawable) {
+            add("test2");
+        }
+
+        @Test
+        public void test3(GLAutoDrawable drawable) {
+            add("test3");
+        }
+
+        @Test
+        public void test4(GLAutoDrawable drawable) {
+            add("test4");
+        }
+    }
+
+    @RunWith(JoglRunner.class)
+    @Iterations(300)
+    @Offscreen
+    @Uncapped
+    public static class UncappedTest {
+
+        @Test
+        public void test(GLAutoDrawable drawable) {
+            methodCalls.get(UncappedTest.class).add("test");
+        }
+    }
+
+    @RunWith(JoglRunner.class)
+    @Iterations(10)
+    @Offscreen
+    @Uncapped
+    @FrameBenchmark(warmup = 5)
+    public static class FrameBenchmarkTest {
+
+        @Test
+        public void test(GLAutoDrawable drawable) {
+            methodCalls.get(FrameBenchmarkTest.class).add("test");
+        }
+    }
+
+    @RunWith(JoglRunner.class)
+    @Iterations(10)
+    @Offscreen
+    @Uncapped
+    public static class BaselineTest {
+
+        @Test
+        @Baseline(reference = "generous", trials = 2)
+        public void generous(GLAutoDrawable drawable) {
+        }
+
+        @Test
+        @Baseline
+        public void missing(GLAutoDrawable drawable) {
+        }
+    }
+
+    @RunWith(JoglRunner.class)
+    @Iterations(3)
+    @Offscreen
+    public static class CallBudgetTest {
+
+        @Test
+        @CallBudget(draws = 1, binds = 0)
+        public void withinBudget(GLAutoDrawable drawable) {
+            GL gl = drawable.getGL();
+            gl.glClear(GL.GL_COLOR_BUFFER_BIT);
+            gl.glDrawArrays(GL.GL_POINTS, 0, 0);
+        }
+
+        @Test
+        @CallBudget(draws = 1)
+        public void overBudget(GLAutoDrawable drawable) {
+            GL gl = drawable.getGL();
+            gl.glDrawArrays(GL.GL_POINTS, 0, 0);
+            gl.glDrawArrays(GL.GL_POINTS, 0, 0);
+        }
+    }
+
+    @RunWith(JoglRunner.class)
+    @Iterations(3)
+    @Offscreen
+    @Debug
+    public static class DebugTest {
+
+        @Test
+        public void clean(GLAutoDrawable drawable) {
+            methodCalls.get(DebugTest.class).add("clean");
+            drawable.getGL().glClear(GL.GL_COLOR_BUFFER_BIT);
+        }
+
+        @Test
+        public void invalidEnum(GLAutoDrawable drawable) {
+            methodCalls.get(DebugTest.class).add("invalidEnum");
+            drawable.getGL().glEnable(0xFFFF);
+        }
+    }
+
     @RunWith(JoglRunner.class)
     @Iterations(1)
     @Ignore
@@ -0,0 +1,59 @@
+package org.cephalus.jogl.junit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+import java.util.jar.JarFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Checks that the packaged jar carries the Java 11 Flight Recorder listener and that it is the one loaded.
+ */
+public class MultiReleaseJarIT {
+
+    private File jar;
+
+    @Before
+    public void findJar() {
+        assumeFalse("Java 8 builds have no versioned classes", System.getProperty("java.version").startsWith("1."));
+        File[] jars = new File("target").listFiles((dir, name) -> name.startsWith("jogl-junit-")
+                && name.endsWith(".jar") && !name.endsWith("-sources.jar") && !name.endsWith("-javadoc.jar"));
+        assertThat(jars).hasSize(1);
+        jar = jars[0];
+    }
+
+    @Test
+    public void versionedListenerIsPackaged() throws IOException {
+        try (JarFile file = new JarFile(jar)) {
+            assertThat(file.getManifest().getMainAttributes().getValue("Multi-Release"))
+                    .isEqualTo("true");
+            assertThat(file.getEntry("META-INF/versions/11/org/cephalus/jogl/junit/JfrRunnerListener.class"))
+                    .isNotNull();
+            assertThat(file.getEntry("META-INF/services/org.cephalus.jogl.junit.RunnerListener"))
+                    .isNotNull();
+        }
+    }
+
+    @Test
+    public void versionedListenerIsLoaded() throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, null)) {
+            Class<?> listenerType = loader.loadClass(RunnerListener.class.getName());
+            Iterator<?> listeners = ServiceLoader.load(listenerType, loader).iterator();
+
+            assertThat(listeners.hasNext()).isTrue();
+            Class<?> listener = listeners.next().getClass();
+            assertThat(listener.getName()).isEqualTo(JfrRunnerListener.class.getName());
+            assertThat(listener.getDeclaredClasses())
+                    .extracting(type -> type.getSuperclass().getName())
+                    .contains("jdk.jfr.Event");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.cephalus.jogl.metric;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricBenchmark {
+
+    @Param({"AbsoluteDifference", "ChannelTolerance", "DifferingPixels", "Ssim", "AntiAliasTolerance"})
+    public String metricName;
+
+    @Param({"640x480", "1920x1080"})
+    public String size;
+
+    private Metric metric;
+    private BufferedImage expected;
+    private BufferedImage actual;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        metric = (Metric) Class.forName(Metric.class.getPackage().getName() + "." + metricName).getConstructor().newInstance();
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+        Random random = new Random(1);
+        expected = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        actual = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for(int y = 0; y < height; y++) {
+            for(int x = 0; x < width; x++) {
+                int rgb = random.nextInt(0x1000000);
+                expected.setRGB(x, y, rgb);
+                actual.setRGB(x, y, random.nextInt(16) == 0 ? rgb ^ 0x030303 : rgb);
+            }
+        }
+    }
+
+    @Benchmark
+    public float divergence() {
+        return metric.divergence(expected, actual, 2, 1f);
+    }
+}
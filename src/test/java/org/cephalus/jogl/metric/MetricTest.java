@@ -0,0 +1,129 @@
+package org.cephalus.jogl.metric;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class MetricTest {
+
+    @Test
+    public void identicalFramesDoNotDiverge() {
+        BufferedImage image = scene(0, 0);
+        for(Metric metric : metrics())
+            assertThat(metric.divergence(image, image, 0, 1f))
+                    .as(metric.getClass().getSimpleName())
+                    .isCloseTo(0f, within(1e-6f));
+    }
+
+    @Test
+    public void channelToleranceIgnoresSmallNoise() {
+        BufferedImage expected = solid(0x808080);
+        BufferedImage actual = solid(0x828183);
+
+        assertThat(new AbsoluteDifference().divergence(expected, actual, 3, 1f)).isGreaterThan(0f);
+        assertThat(new ChannelTolerance().divergence(expected, actual, 3, 1f)).isZero();
+        assertThat(new ChannelTolerance().divergence(expected, actual, 1, 1f))
+                .isCloseTo(3 / 255f, within(1e-6f));
+    }
+
+    @Test
+    public void differingPixelsCountsPixels() {
+        BufferedImage expected = solid(0x000000);
+        BufferedImage actual = solid(0x000000);
+        actual.setRGB(0, 0, 0xFFFFFF);
+        actual.setRGB(1, 0, 0x010101);
+
+        assertThat(new DifferingPixels().divergence(expected, actual, 0, 1f)).isEqualTo(2 / 256f);
+        assertThat(new DifferingPixels().divergence(expected, actual, 1, 1f)).isEqualTo(1 / 256f);
+    }
+
+    @Test
+    public void antiAliasToleranceForgivesShiftedEdges() {
+        BufferedImage expected = scene(0, 0);
+        BufferedImage shifted = scene(1, 0);
+
+        assertThat(new DifferingPixels().divergence(expected, shifted, 0, 1f)).isGreaterThan(0f);
+        assertThat(new AntiAliasTolerance().divergence(expected, shifted, 0, 1f)).isZero();
+    }
+
+    @Test
+    public void antiAliasToleranceReportsNewContent() {
+        BufferedImage expected = solid(0x000000);
+        BufferedImage actual = solid(0x000000);
+        actual.setRGB(5, 5, 0xFF0000);
+        actual.setRGB(6, 5, 0xFF0000);
+
+        assertThat(new AntiAliasTolerance().divergence(expected, actual, 0, 1f)).isEqualTo(2 / 256f);
+    }
+
+    @Test
+    public void ssimPenalisesStructureMoreThanBrightness() {
+        BufferedImage expected = scene(0, 0);
+        BufferedImage brighter = scene(0, 0);
+        BufferedImage noisy = noise(16, 16);
+        for(int y = 0; y < 16; y++)
+            for(int x = 0; x < 16; x++)
+                brighter.setRGB(x, y, expected.getRGB(x, y) + 0x020202);
+
+        float brightness = new Ssim().divergence(expected, brighter, 0, 1f);
+        float structure = new Ssim().divergence(expected, noisy, 0, 1f);
+
+        assertThat(brightness).isLessThan(0.05f);
+        assertThat(structure).isGreaterThan(brightness);
+    }
+
+    @Test
+    public void stopsEarlyAboveThreshold() {
+        BufferedImage expected = solid(0x000000);
+        BufferedImage actual = solid(0xFFFFFF);
+
+        for(Metric metric : metrics())
+            assertThat(metric.divergence(expected, actual, 0, 0.01f))
+                    .as(metric.getClass().getSimpleName())
+                    .isGreaterThan(0.01f);
+    }
+
+    private static Metric[] metrics() {
+        return new Metric[] {
+                new AbsoluteDifference()
+                , new ChannelTolerance()
+                , new DifferingPixels()
+                , new Ssim()
+                , new AntiAliasTolerance()
+        };
+    }
+
+    private static BufferedImage solid(int rgb) {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        for(int y = 0; y < 16; y++)
+            for(int x = 0; x < 16; x++)
+                image.setRGB(x, y, rgb);
+        return image;
+    }
+
+    private static BufferedImage noise(int width, int height) {
+        Random random = new Random(1);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for(int y = 0; y < height; y++)
+            for(int x = 0; x < width; x++)
+                image.setRGB(x, y, random.nextInt(0x1000000));
+        return image;
+    }
+
+    private static BufferedImage scene(int dx, int dy) {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(0x204060));
+        graphics.fillRect(0, 0, 16, 16);
+        graphics.setColor(new Color(0xE0C0A0));
+        graphics.fillRect(4 + dx, 4 + dy, 6, 6);
+        graphics.dispose();
+        return image;
+    }
+}